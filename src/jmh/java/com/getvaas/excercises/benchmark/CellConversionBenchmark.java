@@ -0,0 +1,78 @@
+package com.getvaas.excercises.benchmark;
+
+import com.getvaas.excercises.service.mappers.excel.ColumnPlan;
+import com.getvaas.excercises.service.mappers.excel.CustomDataFormatter;
+import com.getvaas.excercises.service.mappers.excel.RawDataMapper;
+import com.getvaas.excercises.service.mappers.excel.Xlsx4jUtils;
+import com.getvaas.excercises.service.mappers.excel.model.Field;
+import com.getvaas.excercises.service.mappers.excel.model.FieldIndex;
+import com.getvaas.excercises.service.mappers.excel.search.SimpleSearcher;
+import org.docx4j.openpackaging.packages.SpreadsheetMLPackage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xlsx4j.sml.Cell;
+import org.xlsx4j.sml.Row;
+import org.xlsx4j.sml.STCellType;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of every mapped cell of a loaded "Raw Data" sheet to its java type
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class CellConversionBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private List<Row> dataRows;
+    private ColumnPlan plan;
+    private CustomDataFormatter formatter;
+
+    @Setup
+    public void setup() throws Exception {
+        List<Row> sheetRows;
+        try (InputStream in = Files.newInputStream(RawDataWorkbooks.rawData(rows))) {
+            sheetRows = SpreadsheetMLPackage.load(in).getWorkbookPart().getWorksheet(0).getContents().getSheetData().getRow();
+        }
+        plan = compileHeader(sheetRows.get(RawDataWorkbooks.HEADER_ROW));
+        dataRows = sheetRows.subList(RawDataWorkbooks.HEADER_ROW + 1, sheetRows.size());
+        formatter = new CustomDataFormatter();
+    }
+
+    static ColumnPlan compileHeader(Row header) {
+        SimpleSearcher searcher = new SimpleSearcher();
+        Map<Integer, FieldIndex> fieldIndexMap = new HashMap<>();
+        for (Field field : RawDataMapper.getRowDataFields()) {
+            Integer column = searcher.searchColumn(header, field);
+            if (column == null)
+                throw new IllegalStateException("Column of " + field.getFieldName() + " not found in the header");
+            fieldIndexMap.put(column, FieldIndex.FieldIndexBuilder.builder().field(field).columnIndex(column)
+                    .sheetIndex(0).rowIndex(RawDataWorkbooks.HEADER_ROW).build());
+        }
+        return ColumnPlan.compile(fieldIndexMap);
+    }
+
+    @Benchmark
+    public void convertCells(Blackhole blackhole) {
+        for (Row row : dataRows) {
+            for (Cell cell : row.getC()) {
+                long address = Xlsx4jUtils.parseAddress(cell.getR());
+                if (address == Xlsx4jUtils.INVALID_ADDRESS || cell.getT() == STCellType.B)
+                    continue;
+                int column = Xlsx4jUtils.columnOf(address);
+                if (plan.getFieldName(column) != null)
+                    blackhole.consume(plan.getConverter(column).convert(cell, formatter));
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.getvaas.excercises.benchmark;
+
+import com.getvaas.excercises.service.mappers.excel.CellConverter;
+import com.getvaas.excercises.service.mappers.excel.ColumnPlan;
+import com.getvaas.excercises.service.mappers.excel.CustomDataFormatter;
+import com.getvaas.excercises.service.mappers.excel.Xlsx4jUtils;
+import com.getvaas.excercises.service.mappers.excel.model.DataType;
+import com.getvaas.excercises.service.mappers.excel.model.Field;
+import com.getvaas.excercises.service.mappers.excel.model.FieldIndex;
+import com.getvaas.excercises.service.mappers.excel.model.RowBuffer;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xlsx4j.jaxb.Context;
+import org.xlsx4j.sml.Cell;
+import org.xlsx4j.sml.Row;
+import org.xlsx4j.sml.STCellType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cells per second of the per-cell field lookup of the mapper on a 1M-cell sheet:
+ * the previous {@code HashMap<Integer, FieldIndex>} + {@link Pair} lookup against the loop of
+ * {@code ExcelMapper.processCell}, which parses the address of the cell and converts it through the compiled
+ * {@link ColumnPlan} into a reused {@link RowBuffer}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnPlanBenchmark {
+    private static final int ROWS = 50_000;
+    private static final int COLUMNS = 20;
+    private static final int CELLS = ROWS * COLUMNS;
+    private static final DataType[] TYPES = {DataType.LONG, DataType.INT, DataType.DOUBLE, DataType.STRING};
+
+    private List<Row> rows;
+    private Map<Integer, FieldIndex> fieldIndexMap;
+    private ColumnPlan plan;
+    private RowBuffer buffer;
+    private CustomDataFormatter formatter;
+
+    @Setup
+    public void setup() {
+        fieldIndexMap = new HashMap<>();
+        for (int column = 0; column < COLUMNS; column++) {
+            Field field = Field.Builder.aField().fieldName("field" + column).dataType(TYPES[column % TYPES.length]).build();
+            fieldIndexMap.put(column, FieldIndex.FieldIndexBuilder.builder().field(field).columnIndex(column)
+                    .sheetIndex(0).rowIndex(0).build());
+        }
+        plan = ColumnPlan.compile(fieldIndexMap);
+        buffer = plan.newRowBuffer();
+        formatter = new CustomDataFormatter();
+        rows = new ArrayList<>(ROWS);
+        for (int r = 0; r < ROWS; r++) {
+            Row row = Context.getsmlObjectFactory().createRow();
+            for (int column = 0; column < COLUMNS; column++) {
+                Cell cell = Context.getsmlObjectFactory().createCell();
+                cell.setR(columnName(column) + (r + 2));
+                cell.setV(Integer.toString(r * COLUMNS + column));
+                row.getC().add(cell);
+            }
+            rows.add(row);
+        }
+    }
+
+    private static String columnName(int column) {
+        StringBuilder name = new StringBuilder();
+        for (int c = column + 1; c > 0; c = (c - 1) / 26) {
+            name.insert(0, (char) ('A' + (c - 1) % 26));
+        }
+        return name.toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void fieldIndexMap(Blackhole blackhole) {
+        for (Row row : rows) {
+            Map<String, Object> rowData = new HashMap<>();
+            for (Cell cell : row.getC()) {
+                Integer index = -1;
+                try {
+                    index = Xlsx4jUtils.getColumn(cell.getR());
+                } catch (Exception ignored) {
+                }
+                if (index == -1)
+                    continue;
+                FieldIndex fieldIndex = fieldIndexMap.get(index);
+                if (fieldIndex == null)
+                    continue;
+                Object value = CellConverter.forType(fieldIndex.getField().getDataType()).convert(cell, formatter);
+                Pair<String, Object> cellContent = Pair.of(fieldIndex.getField().getFieldName(), value);
+                rowData.put(cellContent.getLeft(), cellContent.getRight());
+            }
+            blackhole.consume(rowData);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void columnPlan(Blackhole blackhole) {
+        for (Row row : rows) {
+            buffer.clear();
+            for (Cell cell : row.getC()) {
+                long address = Xlsx4jUtils.parseAddress(cell.getR());
+                if (address == Xlsx4jUtils.INVALID_ADDRESS)
+                    continue;
+                int index = Xlsx4jUtils.columnOf(address);
+                if (plan.getFieldName(index) == null || cell.getT() == STCellType.B)
+                    continue;
+                plan.getConverter(index).convertInto(cell, formatter, false, buffer, index);
+            }
+            blackhole.consume(buffer);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.getvaas.excercises.benchmark;
+
+import com.getvaas.excercises.service.mappers.excel.CustomDataFormatter;
+import org.docx4j.openpackaging.packages.SpreadsheetMLPackage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xlsx4j.sml.Cell;
+import org.xlsx4j.sml.Row;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting of the cells of a small "Raw Data" upload: a new formatter per mapper, as each upload did before,
+ * against the shared formatter from one and from four threads. Run it on the previous revision too to compare
+ * with the per-instance format cache, new instances now also use the shared cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FormatterBenchmark {
+    private static final int ROWS = 1000;
+
+    private List<Cell> cells;
+
+    @Setup
+    public void setup() throws Exception {
+        List<Row> sheetRows;
+        try (InputStream in = Files.newInputStream(RawDataWorkbooks.rawData(ROWS))) {
+            sheetRows = SpreadsheetMLPackage.load(in).getWorkbookPart().getWorksheet(0).getContents().getSheetData().getRow();
+        }
+        cells = new ArrayList<>();
+        for (Row row : sheetRows.subList(RawDataWorkbooks.HEADER_ROW + 1, sheetRows.size())) {
+            cells.addAll(row.getC());
+        }
+    }
+
+    private void formatAll(CustomDataFormatter formatter, Blackhole blackhole) {
+        for (Cell cell : cells) {
+            blackhole.consume(formatter.formatCellValue(cell));
+        }
+    }
+
+    @Benchmark
+    public void perMapperInstance(Blackhole blackhole) {
+        formatAll(new CustomDataFormatter(), blackhole);
+    }
+
+    @Benchmark
+    public void sharedInstance(Blackhole blackhole) {
+        formatAll(CustomDataFormatter.shared(), blackhole);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void sharedInstanceConcurrent(Blackhole blackhole) {
+        formatAll(CustomDataFormatter.shared(), blackhole);
+    }
+}
@@ -0,0 +1,52 @@
+package com.getvaas.excercises.benchmark;
+
+import com.getvaas.excercises.service.mappers.excel.RawDataMapper;
+import com.getvaas.excercises.service.mappers.excel.model.Field;
+import com.getvaas.excercises.service.mappers.excel.search.Searcher;
+import com.getvaas.excercises.service.mappers.excel.search.SimpleSearcher;
+import org.docx4j.openpackaging.packages.SpreadsheetMLPackage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xlsx4j.sml.Row;
+import org.xlsx4j.sml.SheetData;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search of the header row and of the column of every field in a loaded "Raw Data" sheet
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class HeaderSearchBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private SheetData sheetData;
+    private List<Field> fields;
+    private Searcher searcher;
+
+    @Setup
+    public void setup() throws Exception {
+        try (InputStream in = Files.newInputStream(RawDataWorkbooks.rawData(rows))) {
+            sheetData = SpreadsheetMLPackage.load(in).getWorkbookPart().getWorksheet(0).getContents().getSheetData();
+        }
+        fields = RawDataMapper.getRowDataFields();
+        searcher = new SimpleSearcher();
+    }
+
+    @Benchmark
+    public void searchHeader(Blackhole blackhole) {
+        Integer headerIndex = searcher.searchHeaderRow(sheetData, fields);
+        Row header = sheetData.getRow().get(headerIndex);
+        for (Field field : fields) {
+            blackhole.consume(searcher.searchColumn(header, field));
+        }
+    }
+}
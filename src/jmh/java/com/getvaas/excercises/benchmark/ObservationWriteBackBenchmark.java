@@ -0,0 +1,46 @@
+package com.getvaas.excercises.benchmark;
+
+import com.getvaas.excercises.service.mappers.excel.Xlsx4jUtils;
+import org.docx4j.openpackaging.packages.SpreadsheetMLPackage;
+import org.openjdk.jmh.annotations.*;
+import org.xlsx4j.sml.Row;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving of a loaded "Raw Data" workbook where 1% of the data rows were highlighted with an observation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ObservationWriteBackBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private SpreadsheetMLPackage opcPackage;
+
+    @Setup
+    public void setup() throws Exception {
+        try (InputStream in = Files.newInputStream(RawDataWorkbooks.rawData(rows))) {
+            opcPackage = SpreadsheetMLPackage.load(in);
+        }
+        List<Row> sheetRows = opcPackage.getWorkbookPart().getWorksheet(0).getContents().getSheetData().getRow();
+        for (int r = RawDataWorkbooks.HEADER_ROW + 1; r < sheetRows.size(); r += 100) {
+            Xlsx4jUtils.putObservationInRow(sheetRows.get(r), 0L, "vacio");
+        }
+    }
+
+    @Benchmark
+    public void saveWithObservations() throws Exception {
+        try (OutputStream out = OutputStream.nullOutputStream()) {
+            opcPackage.save(out);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.getvaas.excercises.benchmark;
+
+import com.getvaas.excercises.service.mappers.excel.streaming.SheetRowIterator;
+import com.getvaas.excercises.service.mappers.excel.streaming.XlsxStreamingReader;
+import org.docx4j.openpackaging.packages.SpreadsheetMLPackage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading of a "Raw Data" workbook: the whole package and its sheet against reading the sheet with the streaming reader
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class PackageLoadBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private Path workbook;
+
+    @Setup
+    public void setup() throws Exception {
+        workbook = RawDataWorkbooks.rawData(rows);
+    }
+
+    @Benchmark
+    public Object loadPackage() throws Exception {
+        try (InputStream in = Files.newInputStream(workbook)) {
+            SpreadsheetMLPackage opcPackage = SpreadsheetMLPackage.load(in);
+            return opcPackage.getWorkbookPart().getWorksheet(0).getContents().getSheetData();
+        }
+    }
+
+    @Benchmark
+    public void streamingRead(Blackhole blackhole) throws Exception {
+        try (InputStream in = Files.newInputStream(workbook);
+             XlsxStreamingReader reader = new XlsxStreamingReader(in);
+             SheetRowIterator sheetRows = reader.openSheet(0)) {
+            while (sheetRows.hasNext()) {
+                blackhole.consume(sheetRows.next());
+            }
+        }
+    }
+}
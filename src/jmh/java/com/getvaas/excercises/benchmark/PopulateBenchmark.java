@@ -0,0 +1,70 @@
+package com.getvaas.excercises.benchmark;
+
+import com.getvaas.excercises.service.mappers.excel.ColumnPlan;
+import com.getvaas.excercises.service.mappers.excel.CustomDataFormatter;
+import com.getvaas.excercises.service.mappers.excel.RawDataExcelDto;
+import com.getvaas.excercises.service.mappers.excel.RawDataPopulate;
+import com.getvaas.excercises.service.mappers.excel.Xlsx4jUtils;
+import com.getvaas.excercises.service.mappers.excel.model.PopulateObject;
+import org.docx4j.openpackaging.packages.SpreadsheetMLPackage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xlsx4j.sml.Cell;
+import org.xlsx4j.sml.Row;
+import org.xlsx4j.sml.STCellType;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Population of the "Raw Data" DTOs from rows that are already converted
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class PopulateBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private List<Map<String, Object>> rowData;
+    private PopulateObject<RawDataExcelDto> populateObject;
+
+    @Setup
+    public void setup() throws Exception {
+        List<Row> sheetRows;
+        try (InputStream in = Files.newInputStream(RawDataWorkbooks.rawData(rows))) {
+            sheetRows = SpreadsheetMLPackage.load(in).getWorkbookPart().getWorksheet(0).getContents().getSheetData().getRow();
+        }
+        ColumnPlan plan = CellConversionBenchmark.compileHeader(sheetRows.get(RawDataWorkbooks.HEADER_ROW));
+        CustomDataFormatter formatter = new CustomDataFormatter();
+        rowData = new ArrayList<>(rows);
+        for (Row row : sheetRows.subList(RawDataWorkbooks.HEADER_ROW + 1, sheetRows.size())) {
+            Map<String, Object> data = new HashMap<>();
+            for (Cell cell : row.getC()) {
+                long address = Xlsx4jUtils.parseAddress(cell.getR());
+                if (address == Xlsx4jUtils.INVALID_ADDRESS || cell.getT() == STCellType.B)
+                    continue;
+                int column = Xlsx4jUtils.columnOf(address);
+                if (plan.getFieldName(column) != null)
+                    data.put(plan.getFieldName(column), plan.getConverter(column).convert(cell, formatter));
+            }
+            rowData.add(data);
+        }
+        populateObject = new RawDataPopulate();
+    }
+
+    @Benchmark
+    public void populate(Blackhole blackhole) {
+        for (Map<String, Object> data : rowData) {
+            blackhole.consume(populateObject.populate(data));
+        }
+    }
+}
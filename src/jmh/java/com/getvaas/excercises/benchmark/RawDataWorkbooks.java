@@ -0,0 +1,136 @@
+package com.getvaas.excercises.benchmark;
+
+import com.getvaas.excercises.service.mappers.excel.RawDataMapper;
+import com.getvaas.excercises.service.mappers.excel.model.Field;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Generates synthetic workbooks with the layout of the trustee "Raw Data" sheet: a title, an empty row,
+ * the header and then the data rows. Strings go to the shared strings table, as in the real files.
+ * Generated files are kept in the temporary directory and reused by later runs
+ */
+public class RawDataWorkbooks {
+    private static final String[] FUNDERS = {"Funder One", "Funder Two", "Funder Three"};
+    private static final String[] PRODUCTS = {"Personal Loan", "Payroll Loan", "SME Loan", "Car Loan"};
+    private static final String[] STATUSES = {"Active", "Closed", "Written Off"};
+    private static final String[] FREQUENCIES = {"Monthly", "Biweekly", "Weekly"};
+    private static final String[] BUCKETS = {"0", "1-30", "31-60", "61-90", "90+"};
+    private static final String[] NAMES = {"Ana Gomez", "Juan Perez", "Maria Lopez", "Jose Garcia", "Lucia Diaz"};
+    /**
+     * Index of the header row, in the sheet and in the list of rows of the sheet data
+     */
+    public static final int HEADER_ROW = 2;
+    /**
+     * Version of the layout, part of the file names so files generated with an older layout aren't reused
+     */
+    private static final int LAYOUT_VERSION = 2;
+
+    private RawDataWorkbooks() {
+    }
+
+    /**
+     * Gets a "Raw Data" workbook, it is generated the first time it is requested
+     *
+     * @param rows number of data rows
+     * @return path of the workbook
+     */
+    public static synchronized Path rawData(int rows) throws IOException {
+        Path file = Paths.get(System.getProperty("java.io.tmpdir"),
+                "raw-data-v" + LAYOUT_VERSION + "-" + rows + ".xlsx");
+        if (!Files.exists(file)) {
+            Path partial = Files.createTempFile("raw-data-" + rows + "-", ".xlsx");
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                write(rows, out);
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    private static void write(int rows, OutputStream out) throws IOException {
+        List<Field> fields = RawDataMapper.getRowDataFields();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(null, 1000, true, true);
+        try {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy"));
+            Sheet sheet = workbook.createSheet("Raw Data");
+            sheet.createRow(0).createCell(0).setCellValue("Trustee loan tape");
+            // rows without cells are not written, the empty row has a blank cell so the header keeps its index
+            sheet.createRow(1).createCell(0);
+            Row header = sheet.createRow(HEADER_ROW);
+            for (int column = 0; column < fields.size(); column++) {
+                header.createCell(column).setCellValue(fields.get(column).getSynonyms().get(0));
+            }
+            LocalDate reportDate = LocalDate.of(2021, 6, 30);
+            for (int r = 0; r < rows; r++) {
+                Row row = sheet.createRow(HEADER_ROW + 1 + r);
+                for (int column = 0; column < fields.size(); column++) {
+                    Cell cell = row.createCell(column);
+                    switch (fields.get(column).getFieldName()) {
+                        case "reportDate":
+                            cell.setCellValue(toDate(reportDate));
+                            cell.setCellStyle(dateStyle);
+                            break;
+                        case "contractDisbursementDate":
+                            cell.setCellValue(toDate(reportDate.minusDays(r % 720)));
+                            cell.setCellStyle(dateStyle);
+                            break;
+                        case "funder":
+                            cell.setCellValue(FUNDERS[r % FUNDERS.length]);
+                            break;
+                        case "product":
+                            cell.setCellValue(PRODUCTS[r % PRODUCTS.length]);
+                            break;
+                        case "fullName":
+                            cell.setCellValue(NAMES[r % NAMES.length]);
+                            break;
+                        case "idNumber":
+                            cell.setCellValue(Integer.toString(20_000_000 + r));
+                            break;
+                        case "contract":
+                            cell.setCellValue(STATUSES[r % STATUSES.length]);
+                            break;
+                        case "repaymentFrequency":
+                            cell.setCellValue(FREQUENCIES[r % FREQUENCIES.length]);
+                            break;
+                        case "arrearsBucket":
+                            cell.setCellValue(BUCKETS[r % BUCKETS.length]);
+                            break;
+                        case "apr":
+                            cell.setCellValue("0." + (20 + r % 60));
+                            break;
+                        case "termMonths":
+                            cell.setCellValue(6 + r % 30);
+                            break;
+                        default:
+                            cell.setCellValue(100_000L + r * 7L);
+                            break;
+                    }
+                }
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay().toInstant(ZoneOffset.UTC));
+    }
+}
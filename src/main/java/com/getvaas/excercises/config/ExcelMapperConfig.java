@@ -0,0 +1,30 @@
+package com.getvaas.excercises.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.getvaas.excercises.service.mappers.excel.CustomDataFormatter;
+import com.getvaas.excercises.service.mappers.excel.cache.WorkbookParseCache;
+
+/**
+ * Configuración de los mappers de excel
+ */
+@Configuration
+public class ExcelMapperConfig {
+
+    /**
+     * Formatter de celdas compartido por todas las cargas, sus formatos se compilan una sola vez
+     */
+    @Bean
+    public CustomDataFormatter customDataFormatter() {
+        return CustomDataFormatter.shared();
+    }
+
+    /**
+     * Cache de las cargas de excel, una carga idéntica a una anterior devuelve el resultado guardado
+     */
+    @Bean
+    public WorkbookParseCache workbookParseCache() {
+        return new WorkbookParseCache();
+    }
+}
@@ -0,0 +1,253 @@
+package com.getvaas.excercises.core.football;
+
+import com.getvaas.excercises.core.domain.Match;
+import com.getvaas.excercises.repository.login.MatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through and write-through cache of the matches. Matches are saved in the repository before being cached,
+ * and the ones read from the repository are kept until they expire or the cache is full.
+ * The list of all the matches is kept as an immutable snapshot, replaced on each write, so readers never see
+ * it changing and can't modify it. Hits and misses are published as the {@code cache.gets} metric
+ */
+@Component
+public class MatchCache {
+    /**
+     * Default maximum number of cached matches
+     */
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+    /**
+     * Default time a match is kept since it was cached
+     */
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final String CACHE_NAME = "matches";
+
+    private final MatchRepository matchRepository;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Long, CachedMatch> matches = new ConcurrentHashMap<>();
+    /**
+     * Cached matches in the order they were cached, which is also the order they expire in. Entries replaced
+     * by a later put stay until they reach the head or the queue is compacted. Guarded by itself
+     */
+    private final ArrayDeque<CachedMatch> expiryOrder = new ArrayDeque<>();
+    /**
+     * All the matches, {@code null} if they aren't loaded or there are more than {@link #maxSize}
+     */
+    private volatile Snapshot all;
+    /**
+     * Incremented on each write, a snapshot loaded while a match was written is not kept
+     */
+    private long version;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public MatchCache(MatchRepository matchRepository, MeterRegistry meterRegistry) {
+        this(matchRepository, meterRegistry, DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+    }
+
+    MatchCache(MatchRepository matchRepository, MeterRegistry meterRegistry, int maxSize, long ttlMillis) {
+        this.matchRepository = matchRepository;
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        hits = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "hit")
+                .description("Matches read from the cache").register(meterRegistry);
+        misses = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "miss")
+                .description("Matches read from the repository").register(meterRegistry);
+        evictions = Counter.builder("cache.evictions").tag("cache", CACHE_NAME)
+                .description("Matches evicted because the cache was full").register(meterRegistry);
+        Gauge.builder("cache.size", matches, Map::size).tag("cache", CACHE_NAME)
+                .description("Cached matches").register(meterRegistry);
+    }
+
+    /**
+     * Saves a match in the repository and caches it
+     *
+     * @param match the match
+     * @return the saved match
+     */
+    public Match save(Match match) {
+        Match saved = matchRepository.save(match);
+        putSaved(Collections.singletonList(saved));
+        return saved;
+    }
+
+    /**
+     * Saves matches in the repository with a single call and caches them
+     *
+     * @param matches the matches
+     * @return the saved matches
+     */
+    public List<Match> saveAll(List<Match> matches) {
+        List<Match> saved = matchRepository.saveAll(matches);
+        putSaved(saved);
+        return saved;
+    }
+
+    /**
+     * Caches matches already saved in the repository, e.g. by a batch written in a single transaction
+     *
+     * @param saved the matches returned by the repository
+     */
+    public void putSaved(Iterable<Match> saved) {
+        List<Match> batch = new ArrayList<>();
+        saved.forEach(batch::add);
+        synchronized (this) {
+            version++;
+            Snapshot snapshot = all;
+            if (snapshot != null)
+                all = snapshot.with(batch, maxSize);
+        }
+        for (Match match : batch) {
+            if (match.id != null)
+                put(match);
+        }
+    }
+
+    /**
+     * @param id id of a match
+     * @return the match, read from the repository if it isn't cached
+     */
+    public Optional<Match> findById(Long id) {
+        CachedMatch cached = matches.get(id);
+        if (cached != null && !cached.isExpired()) {
+            hits.increment();
+            return Optional.of(cached.match);
+        }
+        misses.increment();
+        Optional<Match> match = matchRepository.findById(id.intValue());
+        match.ifPresent(this::put);
+        return match;
+    }
+
+    /**
+     * @return all the matches, the list can't be modified and doesn't change with later writes
+     */
+    public List<Match> findAll() {
+        Snapshot snapshot = all;
+        if (snapshot != null && !snapshot.isExpired()) {
+            hits.increment();
+            return snapshot.matches;
+        }
+        misses.increment();
+        long loadVersion;
+        synchronized (this) {
+            loadVersion = version;
+        }
+        List<Match> loaded = List.copyOf(matchRepository.findAll());
+        if (loaded.size() <= maxSize) {
+            synchronized (this) {
+                if (version == loadVersion)
+                    all = new Snapshot(loaded, System.nanoTime() + ttlNanos);
+            }
+            for (Match match : loaded) {
+                if (match.id != null)
+                    put(match);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Removes all the cached matches
+     */
+    public synchronized void clear() {
+        version++;
+        all = null;
+        synchronized (expiryOrder) {
+            matches.clear();
+            expiryOrder.clear();
+        }
+    }
+
+    /**
+     * Caches a match, removing first the expired ones and then, if the cache is full, the oldest ones
+     */
+    private void put(Match match) {
+        CachedMatch cached = new CachedMatch(match, System.nanoTime() + ttlNanos);
+        synchronized (expiryOrder) {
+            CachedMatch head;
+            while ((head = expiryOrder.peekFirst()) != null && head.isExpired()) {
+                expiryOrder.pollFirst();
+                matches.remove(head.match.id, head);
+            }
+            boolean added = matches.put(match.id, cached) == null;
+            expiryOrder.addLast(cached);
+            while (added && matches.size() > maxSize && (head = expiryOrder.pollFirst()) != null) {
+                if (matches.remove(head.match.id, head))
+                    evictions.increment();
+            }
+            if (expiryOrder.size() > 2 * Math.max(maxSize, matches.size()))
+                expiryOrder.removeIf(entry -> matches.get(entry.match.id) != entry);
+        }
+    }
+
+    private static final class CachedMatch {
+        private final Match match;
+        private final long expiresAt;
+
+        private CachedMatch(Match match, long expiresAt) {
+            this.match = match;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+
+    private static final class Snapshot {
+        private final List<Match> matches;
+        private final long expiresAt;
+
+        private Snapshot(List<Match> matches, long expiresAt) {
+            this.matches = matches;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+
+        /**
+         * @return a copy of the snapshot with the matches added or replaced, or {@code null} if it would be too big
+         */
+        Snapshot with(List<Match> added, int maxSize) {
+            Map<Long, Match> byId = new HashMap<>();
+            for (Match match : added) {
+                if (match.id != null)
+                    byId.put(match.id, match);
+            }
+            List<Match> copy = new ArrayList<>(matches.size() + added.size());
+            for (Match existing : matches) {
+                Match replacement = existing.id != null ? byId.remove(existing.id) : null;
+                copy.add(replacement != null ? replacement : existing);
+            }
+            for (Match match : added) {
+                if (match.id == null) {
+                    copy.add(match);
+                    continue;
+                }
+                // the matches with an id already in the snapshot were put in its place, the last one of each id wins
+                Match latest = byId.remove(match.id);
+                if (latest != null)
+                    copy.add(latest);
+            }
+            return copy.size() <= maxSize ? new Snapshot(Collections.unmodifiableList(copy), expiresAt) : null;
+        }
+    }
+}
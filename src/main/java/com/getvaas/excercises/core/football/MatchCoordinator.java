@@ -5,97 +5,138 @@ import com.getvaas.excercises.core.domain.Match;
 import com.getvaas.excercises.core.domain.Player;
 import com.getvaas.excercises.core.domain.Team;
 import com.getvaas.excercises.repository.login.FixtureRepository;
-import com.getvaas.excercises.repository.login.MatchRepository;
-import com.getvaas.excercises.repository.login.PlayerRepository;
-import com.getvaas.excercises.repository.login.TeamRepository;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static org.springframework.beans.factory.config.BeanDefinition.SCOPE_SINGLETON;
 
 @Component
 @Scope(SCOPE_SINGLETON)
 public class MatchCoordinator {
-    public List<Match> matchesList = new ArrayList<>();
+    private final FixtureRepository fixtureRepository;
+    private final MatchCache matchCache;
+    private final MatchIngestionPipeline ingestionPipeline;
+    private final MatchWriteBehindQueue writeBehindQueue;
+    private final StandingsEngine standingsEngine;
+
+    public MatchCoordinator(FixtureRepository fixtureRepository, MatchCache matchCache,
+                            MatchIngestionPipeline ingestionPipeline, MatchWriteBehindQueue writeBehindQueue,
+                            StandingsEngine standingsEngine) {
+        this.fixtureRepository = fixtureRepository;
+        this.matchCache = matchCache;
+        this.ingestionPipeline = ingestionPipeline;
+        this.writeBehindQueue = writeBehindQueue;
+        this.standingsEngine = standingsEngine;
+        // in write-behind mode the results are counted once written, a table built from the repository
+        // before that wouldn't include them and would never get them otherwise
+        writeBehindQueue.onSaved(saved -> saved.forEach(this::recordResult));
+    }
 
-    private FixtureRepository fixtureRepository;
-    private MatchRepository matchRepository;
-    private PlayerRepository playerRepository;
-    private TeamRepository teamRepository;
+    /**
+     * Queues the rows of a match to be saved in the next batch of the {@link MatchIngestionPipeline}.
+     * Call {@link #flush()} when the rows must be in the database.
+     * The rows aren't saved by this call, so its errors don't reach the caller: a batch given up after
+     * {@code football.ingestion.max-attempts} attempts is only logged and counted in {@code match.ingestion.failed}.
+     * Use {@link #saveInfoAsync} to be told when the rows couldn't be saved
+     *
+     * @return always {@code true}, the rows are queued
+     * @see #saveInfoAsync(Fixture, Match, List, List)
+     */
+    public boolean saveInfo(Fixture fixture, Match match, List<Player> playerList, List<Team> teamList) {
 
-    Team winnerTeam = null;
+        saveInfoAsync(fixture, match, playerList, teamList);
 
-    public boolean saveInfo(Fixture fixture, Match match, List<Player> playerList, List<Team> teamList) {
+        return Boolean.TRUE;
 
-        fixtureRepository.save(fixture);
-        matchRepository.save(match);
-        playerRepository.saveAll(playerList);
-        teamRepository.saveAll(teamList);
+    }
 
-        matchesList.add(match);
+    /**
+     * Queues the rows of a match to be saved in the next batch of the {@link MatchIngestionPipeline},
+     * the standings are updated once the batch is committed
+     *
+     * @return completed when the rows are committed and the standings updated, or exceptionally if the rows
+     * couldn't be saved
+     */
+    public CompletableFuture<Void> saveInfoAsync(Fixture fixture, Match match, List<Player> playerList, List<Team> teamList) {
 
-        return Boolean.TRUE;
+        return ingestionPipeline.submit(fixture, match, playerList, teamList).thenRun(() -> {
+            loadStandings(fixture, true);
+            standingsEngine.recordResult(fixture.id, match);
+        });
+
+    }
+    /**
+     * Saves the rows queued by {@link #saveInfo}
+     */
+    public void flush() {
+
+        ingestionPipeline.flush();
 
     }
+
     public List<Match> retrieveAllMatches() {
 
-        if(matchesList.size() > 0) {
-            return matchesList;
-        }
-        return matchRepository.findAll();
+        return matchCache.findAll();
 
     }
 
+    /**
+     * Saves the result of a match. In write-behind mode the result is queued and written later by the
+     * {@link MatchWriteBehindQueue}, {@code false} is returned if the queue is full and the result wasn't accepted.
+     * The standings count the result once it is saved
+     */
     public boolean saveMatch(Match match) {
         
-        matchRepository.save(match);
+        if (writeBehindQueue.isEnabled())
+            return writeBehindQueue.offer(match);
+        matchCache.save(match);
+        recordResult(match);
         return  Boolean.TRUE;
         
     }
 
+    /**
+     * Gets the team with the most points of a fixture. The table of the fixture is built from the
+     * stored matches the first time, afterwards it is updated as the results are saved
+     */
     public Optional<Team> retrieveFirstTeam(Fixture fixture) {
-        
-        List<Match> matchList = new ArrayList<>(fixtureRepository.findById(fixture.id.intValue())
-                .get()
-                .listaDePartidos);
-
-        Map<Team, Long> teamPointsMap = new HashMap<>();
-
-        for (Match match: matchList) {
-            
-            Long winnerScore = 0L;
-            boolean isScoreEven = Boolean.FALSE;
-
-            for (Map.Entry<Long, Team> mapEntries: match.matchMap.entrySet()) {
-
-                if(winnerScore == mapEntries.getKey()) {
-                    isScoreEven = Boolean.TRUE;
-                } else if(mapEntries.getKey() > winnerScore) {
-                    winnerScore = mapEntries.getKey();
-                    isScoreEven = Boolean.FALSE;
-                }
-            }
-
-            if(isScoreEven) {
-                Long team1Score = teamPointsMap.get(match.teamList.get(0)) + 1;
-                Long team2Score = teamPointsMap.get(match.teamList.get(1)) + 1;
-                teamPointsMap.put(match.teamList.get(0), team1Score);
-                teamPointsMap.put(match.teamList.get(1), team2Score);
-            } else {
-                Long winnerTeamScore = teamPointsMap.get(winnerTeam) + 3;
-                teamPointsMap.put(winnerTeam, winnerTeamScore);
-            }
-        }
-
-        Map.Entry<Team, Long> winnerTeam = teamPointsMap.entrySet()
-                .stream()
-                .max((t1, t2) -> t1.getValue() > t2.getValue() ? t1.getValue().intValue() : t2.getValue().intValue())
-                .get();
-
-        return Optional.of(winnerTeam.getKey());
 
+        loadStandings(fixture, false);
+        return standingsEngine.leader(fixture.id);
+
+    }
+
+    /**
+     * Builds the table of a fixture from its stored matches, so the results recorded afterwards are added
+     * to its history
+     *
+     * @param fixture  the fixture
+     * @param saving   {@code true} if the fixture is being saved, its own matches are used if it isn't stored yet
+     */
+    private void loadStandings(Fixture fixture, boolean saving) {
+        if (fixture.id == null || standingsEngine.isLoaded(fixture.id))
+            return;
+        Optional<Fixture> stored = fixtureRepository.findById(fixture.id.intValue());
+        if (stored.isPresent())
+            standingsEngine.load(stored.get());
+        else if (saving)
+            standingsEngine.load(fixture);
+    }
+
+    /**
+     * Records a new result of a match in the table of its fixture. When the match wasn't recorded yet its
+     * fixture is looked up in the repository, the table is only updated if it is already loaded, otherwise it
+     * will be built with the result the next time it is read
+     */
+    private void recordResult(Match match) {
+        if (standingsEngine.recordResult(match) || match.id == null)
+            return;
+        Optional<Fixture> fixture = fixtureRepository.findFirstByListaDePartidosId(match.id);
+        if (fixture.isPresent() && standingsEngine.isLoaded(fixture.get().id))
+            standingsEngine.recordResult(fixture.get().id, match);
     }
 
 
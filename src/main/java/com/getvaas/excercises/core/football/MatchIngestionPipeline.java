@@ -0,0 +1,271 @@
+package com.getvaas.excercises.core.football;
+
+import com.getvaas.excercises.core.domain.Fixture;
+import com.getvaas.excercises.core.domain.Match;
+import com.getvaas.excercises.core.domain.Player;
+import com.getvaas.excercises.core.domain.Team;
+import com.getvaas.excercises.repository.login.FixtureRepository;
+import com.getvaas.excercises.repository.login.MatchRepository;
+import com.getvaas.excercises.repository.login.PlayerRepository;
+import com.getvaas.excercises.repository.login.TeamRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulates the fixtures, matches, players and teams to save and writes them together, in a single
+ * transaction, when there are {@code football.ingestion.batch-size} rows pending or the oldest one has waited
+ * {@code football.ingestion.max-delay-ms}. Combined with the hibernate batch settings each type of row is sent
+ * to the database in JDBC batches instead of one round-trip per row.
+ * A batch that can't be saved is kept and retried, with an increasing wait between the attempts, before the rows
+ * submitted later. After {@code football.ingestion.max-attempts} attempts it is given up and the futures of its
+ * rows complete exceptionally
+ */
+@Component
+public class MatchIngestionPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(MatchIngestionPipeline.class);
+    /**
+     * Wait before the first retry of a failed batch, it doubles with each attempt
+     */
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+    private static final long MAX_RETRY_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final FixtureRepository fixtureRepository;
+    private final MatchRepository matchRepository;
+    private final PlayerRepository playerRepository;
+    private final TeamRepository teamRepository;
+    private final MatchCache matchCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final int maxAttempts;
+    private final ScheduledExecutorService flusher;
+    private final Counter flushedRows;
+    private final Counter failedRows;
+    private final Timer flushTimer;
+
+    /**
+     * Rows waiting to be saved, guarded by {@code this}
+     */
+    private Batch pending = new Batch();
+    /**
+     * Only one batch is written at a time, so the batches are committed in the order they were filled
+     */
+    private final Object flushLock = new Object();
+    /**
+     * Batch whose last attempt failed, it is written before the pending rows. Written holding {@link #flushLock}
+     */
+    private volatile Batch retry;
+    private volatile long retryAt;
+    private long totalRows;
+    private long totalFlushNanos;
+
+    public MatchIngestionPipeline(FixtureRepository fixtureRepository, MatchRepository matchRepository,
+                                  PlayerRepository playerRepository, TeamRepository teamRepository,
+                                  MatchCache matchCache, PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${football.ingestion.batch-size:500}") int batchSize,
+                                  @Value("${football.ingestion.max-delay-ms:1000}") long maxDelayMillis,
+                                  @Value("${football.ingestion.max-attempts:5}") int maxAttempts) {
+        if (batchSize < 1 || maxAttempts < 1)
+            throw new IllegalArgumentException("The batch size and the attempts must be positive");
+        this.fixtureRepository = fixtureRepository;
+        this.matchRepository = matchRepository;
+        this.playerRepository = playerRepository;
+        this.teamRepository = teamRepository;
+        this.matchCache = matchCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.maxAttempts = maxAttempts;
+        this.flushedRows = Counter.builder("match.ingestion.rows")
+                .description("Rows saved by the match ingestion pipeline").register(meterRegistry);
+        this.failedRows = Counter.builder("match.ingestion.failed")
+                .description("Rows given up by the match ingestion pipeline after all the attempts")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("match.ingestion.flush")
+                .description("Time spent saving a batch of the match ingestion pipeline").register(meterRegistry);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "match-ingestion-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, maxDelayMillis / 2);
+        flusher.scheduleWithFixedDelay(this::flushIfDue, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds the rows of a match to the next batch, the batch is written by the calling thread if it gets full
+     *
+     * @param fixture    fixture of the match
+     * @param match      the match
+     * @param playerList players of the match
+     * @param teamList   teams of the match
+     * @return completed once the rows are committed, or exceptionally if their batch is given up
+     */
+    public CompletableFuture<Void> submit(Fixture fixture, Match match, List<Player> playerList, List<Team> teamList) {
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        boolean full;
+        synchronized (this) {
+            pending.add(fixture, match, playerList, teamList, committed);
+            full = pending.rows >= batchSize;
+        }
+        if (full)
+            flush(false);
+        return committed;
+    }
+
+    /**
+     * Writes the failed batch, if any, and the pending rows in a single transaction each
+     *
+     * @throws RuntimeException the error of a batch that couldn't be saved, it is kept to be retried
+     *                          unless it ran out of attempts
+     */
+    public void flush() {
+        flush(true);
+    }
+
+    /**
+     * @param force whether a failed batch is retried before its wait ends and the errors are thrown
+     */
+    private void flush(boolean force) {
+        synchronized (flushLock) {
+            Batch failed = retry;
+            if (failed != null) {
+                if (!force && System.nanoTime() - retryAt < 0)
+                    return;
+                retry = null;
+                write(failed, force);
+                // the rows submitted later wait for the failed batch, so the batches are committed in order
+                if (retry != null)
+                    return;
+            }
+            Batch batch;
+            synchronized (this) {
+                if (pending.rows == 0)
+                    return;
+                batch = pending;
+                pending = new Batch();
+            }
+            write(batch, force);
+        }
+    }
+
+    /**
+     * Saves a batch, if it fails it is kept in {@link #retry} or given up when it has no attempts left
+     */
+    private void write(Batch batch, boolean rethrow) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                teamRepository.saveAll(batch.teams);
+                playerRepository.saveAll(batch.players);
+                matchCache.putSaved(matchRepository.saveAll(batch.matches));
+                fixtureRepository.saveAll(batch.fixtures);
+            });
+        } catch (RuntimeException e) {
+            batch.attempts++;
+            if (batch.attempts < maxAttempts) {
+                long backoff = Math.min(MAX_RETRY_BACKOFF_MILLIS, RETRY_BACKOFF_MILLIS << Math.min(batch.attempts - 1, 16));
+                retry = batch;
+                retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff);
+                logger.warn("Error saving a batch of {} rows, attempt {} of {}, retrying in {} ms: {}",
+                        batch.rows, batch.attempts, maxAttempts, backoff, e.toString());
+            } else {
+                logger.error("Error saving a batch of " + batch.rows + " rows, it is given up after "
+                        + batch.attempts + " attempts", e);
+                failedRows.increment(batch.rows);
+                for (CompletableFuture<Void> committed : batch.committed) {
+                    committed.completeExceptionally(e);
+                }
+            }
+            if (rethrow)
+                throw e;
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        flushTimer.record(nanos, TimeUnit.NANOSECONDS);
+        flushedRows.increment(batch.rows);
+        totalRows += batch.rows;
+        totalFlushNanos += nanos;
+        logger.info("Saved {} rows in {} ms ({} rows/s)", batch.rows, TimeUnit.NANOSECONDS.toMillis(nanos),
+                (long) rowsPerSecond(batch.rows, nanos));
+        for (CompletableFuture<Void> committed : batch.committed) {
+            committed.complete(null);
+        }
+    }
+
+    private void flushIfDue() {
+        boolean due;
+        synchronized (this) {
+            due = pending.rows > 0 && System.nanoTime() - pending.createdAt >= maxDelayNanos;
+        }
+        if (due || retry != null)
+            flush(false);
+    }
+
+    /**
+     * @return rows saved per second of flushing since the pipeline started
+     */
+    public double getRowsPerSecond() {
+        synchronized (flushLock) {
+            return rowsPerSecond(totalRows, totalFlushNanos);
+        }
+    }
+
+    private static double rowsPerSecond(long rows, long nanos) {
+        return nanos > 0 ? rows * (double) TimeUnit.SECONDS.toNanos(1) / nanos : 0;
+    }
+
+    /**
+     * Stops the scheduled flushes and writes the rows still pending, retrying a failed batch until it
+     * runs out of attempts
+     */
+    @PreDestroy
+    public void close() {
+        flusher.shutdown();
+        while (true) {
+            try {
+                flush();
+                return;
+            } catch (RuntimeException e) {
+                // already logged, the batch is retried until it is given up
+            }
+        }
+    }
+
+    private static final class Batch {
+        private final List<Fixture> fixtures = new ArrayList<>();
+        private final List<Match> matches = new ArrayList<>();
+        private final List<Player> players = new ArrayList<>();
+        private final List<Team> teams = new ArrayList<>();
+        private final List<CompletableFuture<Void>> committed = new ArrayList<>();
+        private final long createdAt = System.nanoTime();
+        private int rows;
+        private int attempts;
+
+        void add(Fixture fixture, Match match, List<Player> playerList, List<Team> teamList,
+                 CompletableFuture<Void> future) {
+            committed.add(future);
+            fixtures.add(fixture);
+            matches.add(match);
+            players.addAll(playerList);
+            teams.addAll(teamList);
+            rows += 2 + playerList.size() + teamList.size();
+        }
+    }
+}
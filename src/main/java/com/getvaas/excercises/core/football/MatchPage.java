@@ -0,0 +1,29 @@
+package com.getvaas.excercises.core.football;
+
+import com.getvaas.excercises.core.domain.Match;
+
+import java.util.List;
+
+/**
+ * A slice of the matches in id order, the next slice starts after {@link #getNextAfterId()}
+ */
+public class MatchPage {
+    private final List<Match> matches;
+    /**
+     * Id of the last match of the slice, {@code null} if there are no more matches
+     */
+    private final Long nextAfterId;
+
+    public MatchPage(List<Match> matches, Long nextAfterId) {
+        this.matches = matches;
+        this.nextAfterId = nextAfterId;
+    }
+
+    public List<Match> getMatches() {
+        return matches;
+    }
+
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+}
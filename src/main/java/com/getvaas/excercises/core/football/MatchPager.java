@@ -0,0 +1,80 @@
+package com.getvaas.excercises.core.football;
+
+import com.getvaas.excercises.core.domain.Match;
+import com.getvaas.excercises.repository.login.MatchRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the matches in fixed-size slices ordered by id, each slice starts after the last id of the previous one,
+ * so reading a slice costs the same wherever it is and only one slice is in memory at a time
+ */
+@Component
+public class MatchPager {
+    public static final int DEFAULT_SLICE_SIZE = 500;
+    public static final int MAX_SLICE_SIZE = 5_000;
+
+    private final MatchRepository matchRepository;
+
+    public MatchPager(MatchRepository matchRepository) {
+        this.matchRepository = matchRepository;
+    }
+
+    /**
+     * @param afterId id of the last match already read, {@code null} to start from the first one
+     * @param size    number of matches, it is limited to {@link #MAX_SLICE_SIZE}
+     * @return the next matches
+     */
+    public MatchPage page(Long afterId, int size) {
+        int sliceSize = Math.max(1, Math.min(size, MAX_SLICE_SIZE));
+        List<Match> matches = slice(afterId, sliceSize);
+        Long nextAfterId = matches.size() < sliceSize ? null : matches.get(matches.size() - 1).id;
+        return new MatchPage(matches, nextAfterId);
+    }
+
+    /**
+     * Reads all the matches slice by slice, in the calling thread
+     *
+     * @param sliceSize number of matches of each slice
+     * @param action    called with each slice, in id order
+     */
+    public void forEachSlice(int sliceSize, Consumer<List<Match>> action) {
+        Long afterId = null;
+        List<Match> matches;
+        do {
+            matches = slice(afterId, sliceSize);
+            if (!matches.isEmpty()) {
+                action.accept(matches);
+                afterId = matches.get(matches.size() - 1).id;
+            }
+        } while (matches.size() == sliceSize);
+    }
+
+    /**
+     * Reactive version of {@link #forEachSlice(int, Consumer)}, a slice is only read when the subscriber
+     * requests more matches. The repository is read in the bounded elastic scheduler
+     *
+     * @param sliceSize number of matches of each slice
+     * @return all the matches in id order
+     */
+    public Flux<Match> flux(int sliceSize) {
+        return Flux.<List<Match>, Long>generate(() -> Long.MIN_VALUE, (afterId, sink) -> {
+            List<Match> matches = slice(afterId, sliceSize);
+            if (!matches.isEmpty())
+                sink.next(matches);
+            if (matches.size() < sliceSize)
+                sink.complete();
+            return matches.isEmpty() ? afterId : matches.get(matches.size() - 1).id;
+        }).concatMapIterable(matches -> matches).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private List<Match> slice(Long afterId, int sliceSize) {
+        return matchRepository.findByIdGreaterThanOrderByIdAsc(afterId != null ? afterId : Long.MIN_VALUE,
+                PageRequest.of(0, sliceSize));
+    }
+}
@@ -0,0 +1,253 @@
+package com.getvaas.excercises.core.football;
+
+import com.getvaas.excercises.core.domain.Match;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind mode of {@link MatchCoordinator#saveMatch}, enabled with {@code football.write-behind.enabled}.
+ * The results are put on a bounded lock-free queue and the caller returns right away, a background worker takes
+ * up to {@code football.write-behind.batch-size} results at a time, keeps only the last one of each match and
+ * saves them with a single {@code saveAll}. When the queue is full {@link #offer(Match)} waits up to
+ * {@code football.write-behind.offer-timeout-ms} for room and then rejects the result.
+ * The saved matches are visible to the readers, and passed to the {@link #onSaved saved listener}, once the worker
+ * has written them. A batch that can't be saved is retried, with an increasing wait between the attempts and
+ * keeping its slots of the queue, and after {@code football.write-behind.max-attempts} attempts it is dropped
+ */
+@Component
+public class MatchWriteBehindQueue {
+    private static final Logger logger = LoggerFactory.getLogger(MatchWriteBehindQueue.class);
+    /**
+     * Wait between the checks for room of a blocked {@link #offer(Match)}
+     */
+    private static final long OFFER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    /**
+     * Longest wait of the idle worker, it is also woken up when a result arrives to an empty queue
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    /**
+     * Wait before the first retry of a failed batch, it doubles with each attempt
+     */
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+    private static final long MAX_RETRY_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final MatchCache matchCache;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final long offerTimeoutNanos;
+    private final long drainTimeoutMillis;
+    private final int maxAttempts;
+    private final Queue<Match> queue = new ConcurrentLinkedQueue<>();
+    /**
+     * Results in the queue plus the slots reserved by the offers about to add one, never above {@link #capacity}
+     */
+    private final AtomicInteger size = new AtomicInteger();
+    private final Thread worker;
+    private volatile boolean closed;
+    private final Counter rejected;
+    private final Counter coalesced;
+    private final Counter dropped;
+    private volatile Consumer<List<Match>> savedListener = saved -> {
+    };
+
+    public MatchWriteBehindQueue(MatchCache matchCache, MeterRegistry meterRegistry,
+                                 @Value("${football.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${football.write-behind.capacity:10000}") int capacity,
+                                 @Value("${football.write-behind.batch-size:500}") int batchSize,
+                                 @Value("${football.write-behind.offer-timeout-ms:100}") long offerTimeoutMillis,
+                                 @Value("${football.write-behind.drain-timeout-ms:30000}") long drainTimeoutMillis,
+                                 @Value("${football.write-behind.max-attempts:5}") int maxAttempts) {
+        if (capacity < 1 || batchSize < 1 || maxAttempts < 1)
+            throw new IllegalArgumentException("The capacity, the batch size and the attempts must be positive");
+        this.matchCache = matchCache;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        this.drainTimeoutMillis = drainTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+        rejected = Counter.builder("match.writebehind.rejected")
+                .description("Results rejected because the write-behind queue was full").register(meterRegistry);
+        coalesced = Counter.builder("match.writebehind.coalesced")
+                .description("Results replaced by a later result of the same match before being written")
+                .register(meterRegistry);
+        dropped = Counter.builder("match.writebehind.dropped")
+                .description("Results dropped because their batch couldn't be saved after all the attempts")
+                .register(meterRegistry);
+        Gauge.builder("match.writebehind.size", size, AtomicInteger::get)
+                .description("Results waiting to be written").register(meterRegistry);
+        if (enabled) {
+            worker = new Thread(this::run, "match-write-behind");
+            worker.setDaemon(true);
+            worker.start();
+        } else {
+            worker = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the callback run by the worker with the matches of each batch once they are saved
+     *
+     * @param listener receives the saved matches, with their ids
+     */
+    public void onSaved(Consumer<List<Match>> listener) {
+        this.savedListener = listener;
+    }
+
+    /**
+     * Queues a result to be written by the worker
+     *
+     * @param match the match
+     * @return {@code false} if the queue stayed full for the offer timeout or is closed, the result isn't saved
+     */
+    public boolean offer(Match match) {
+        if (!enabled)
+            throw new IllegalStateException("The write-behind mode is disabled");
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        while (!closed) {
+            int previous = reserve();
+            if (previous >= 0) {
+                queue.offer(match);
+                if (previous == 0)
+                    LockSupport.unpark(worker);
+                return true;
+            }
+            if (System.nanoTime() - deadline >= 0)
+                break;
+            LockSupport.parkNanos(OFFER_PARK_NANOS);
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Takes a slot of the queue
+     *
+     * @return the size before taking the slot, or -1 if the queue is full
+     */
+    private int reserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity)
+                return -1;
+        } while (!size.compareAndSet(current, current + 1));
+        return current;
+    }
+
+    /**
+     * @return results waiting to be written
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private void run() {
+        while (true) {
+            if (writeBatch() == 0) {
+                // a slot may be reserved but its result not queued yet, the size is checked instead of the queue
+                if (closed && size.get() == 0)
+                    return;
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Writes the next results of the queue, keeping the last one of each match
+     *
+     * @return number of results taken from the queue
+     */
+    private int writeBatch() {
+        Map<Long, Match> latest = new LinkedHashMap<>();
+        List<Match> withoutId = new ArrayList<>();
+        int taken = 0;
+        Match match;
+        while (taken < batchSize && (match = queue.poll()) != null) {
+            taken++;
+            if (match.id != null)
+                latest.put(match.id, match);
+            else
+                withoutId.add(match);
+        }
+        if (taken == 0)
+            return 0;
+        List<Match> batch = new ArrayList<>(latest.size() + withoutId.size());
+        batch.addAll(latest.values());
+        batch.addAll(withoutId);
+        save(batch);
+        size.addAndGet(-taken);
+        coalesced.increment(taken - batch.size());
+        return taken;
+    }
+
+    /**
+     * Saves a batch, retrying it while it has attempts left, and passes the saved matches to the listener
+     */
+    private void save(List<Match> batch) {
+        for (int attempt = 1; ; attempt++) {
+            List<Match> saved;
+            try {
+                saved = matchCache.saveAll(batch);
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    logger.error("Error saving a batch of " + batch.size() + " match results, it is dropped after "
+                            + attempt + " attempts", e);
+                    dropped.increment(batch.size());
+                    return;
+                }
+                long backoff = Math.min(MAX_RETRY_BACKOFF_MILLIS, RETRY_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+                logger.warn("Error saving a batch of {} match results, attempt {} of {}, retrying in {} ms: {}",
+                        batch.size(), attempt, maxAttempts, backoff, e.toString());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff);
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+                continue;
+            }
+            try {
+                savedListener.accept(saved);
+            } catch (RuntimeException e) {
+                logger.error("Error handling a saved batch of " + saved.size() + " match results", e);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Stops accepting results and waits for the worker to write the ones already queued
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (worker == null)
+            return;
+        closed = true;
+        LockSupport.unpark(worker);
+        worker.join(drainTimeoutMillis);
+        if (worker.isAlive())
+            logger.warn("{} match results were not written before the shutdown", size.get());
+    }
+}
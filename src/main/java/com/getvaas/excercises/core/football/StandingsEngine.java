@@ -0,0 +1,195 @@
+package com.getvaas.excercises.core.football;
+
+import com.getvaas.excercises.core.domain.Fixture;
+import com.getvaas.excercises.core.domain.Match;
+import com.getvaas.excercises.core.domain.Team;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Points table of each fixture, updated as the results are saved instead of recomputed from all the matches.
+ * A win gives 3 points and a draw 1 point to each team. The teams of a fixture are kept sorted by points,
+ * so the leader is read without going through the matches
+ */
+@Component
+public class StandingsEngine {
+    private final Map<Long, FixtureStandings> standingsByFixture = new ConcurrentHashMap<>();
+    /**
+     * Fixture of each match whose result was recorded, to update the table when the result changes
+     */
+    private final Map<Long, Long> fixtureByMatch = new ConcurrentHashMap<>();
+
+    /**
+     * @param fixtureId id of a fixture
+     * @return {@code true} if the table of the fixture is being kept
+     */
+    public boolean isLoaded(Long fixtureId) {
+        return standingsByFixture.containsKey(fixtureId);
+    }
+
+    /**
+     * Builds the table of a fixture from its matches, if it isn't built yet
+     *
+     * @param fixture a fixture with its matches
+     */
+    public void load(Fixture fixture) {
+        standingsByFixture.computeIfAbsent(fixture.id, id -> {
+            FixtureStandings standings = new FixtureStandings();
+            if (fixture.listaDePartidos != null) {
+                for (Match match : fixture.listaDePartidos) {
+                    standings.record(match);
+                    if (match.id != null)
+                        fixtureByMatch.put(match.id, id);
+                }
+            }
+            return standings;
+        });
+    }
+
+    /**
+     * Records the result of a match of a fixture, replacing the previous result of the match if it was recorded
+     *
+     * @param fixtureId id of the fixture of the match
+     * @param match     the match
+     */
+    public void recordResult(Long fixtureId, Match match) {
+        if (fixtureId == null)
+            return;
+        if (match.id != null)
+            fixtureByMatch.put(match.id, fixtureId);
+        standingsByFixture.computeIfAbsent(fixtureId, id -> new FixtureStandings()).record(match);
+    }
+
+    /**
+     * Records the new result of a match already recorded in a fixture
+     *
+     * @param match the match
+     * @return {@code false} if the fixture of the match is unknown, the result wasn't recorded
+     */
+    public boolean recordResult(Match match) {
+        Long fixtureId = match.id != null ? fixtureByMatch.get(match.id) : null;
+        if (fixtureId == null)
+            return false;
+        recordResult(fixtureId, match);
+        return true;
+    }
+
+    /**
+     * @param fixtureId id of a fixture
+     * @return the team with the most points in the fixture, empty if the fixture isn't loaded or has no results
+     */
+    public Optional<Team> leader(Long fixtureId) {
+        FixtureStandings standings = standingsByFixture.get(fixtureId);
+        return standings != null ? Optional.ofNullable(standings.leader) : Optional.empty();
+    }
+
+    /**
+     * @param fixtureId id of a fixture
+     * @return points of each team of the fixture, from the leader down
+     */
+    public Map<Team, Long> table(Long fixtureId) {
+        FixtureStandings standings = standingsByFixture.get(fixtureId);
+        return standings != null ? standings.table() : new LinkedHashMap<>();
+    }
+
+    /**
+     * Forgets the table of a fixture, it is built again the next time it is loaded
+     */
+    public void evict(Long fixtureId) {
+        standingsByFixture.remove(fixtureId);
+        fixtureByMatch.values().removeIf(fixtureId::equals);
+    }
+
+    /**
+     * Points given to each team by the result of a match
+     */
+    static Map<Team, Long> pointsOf(Match match) {
+        Map<Team, Long> points = new HashMap<>();
+        if (match.teamList == null || match.matchMap == null || match.matchMap.isEmpty())
+            return points;
+        // the scores are the keys of the map, when both teams have the same score there is a single entry
+        if (match.matchMap.size() < match.teamList.size()) {
+            for (Team team : match.teamList) {
+                points.put(team, 1L);
+            }
+            return points;
+        }
+        Long winnerScore = null;
+        for (Long score : match.matchMap.keySet()) {
+            if (winnerScore == null || score > winnerScore)
+                winnerScore = score;
+        }
+        for (Team team : match.teamList) {
+            points.put(team, 0L);
+        }
+        points.put(match.matchMap.get(winnerScore), 3L);
+        return points;
+    }
+
+    /**
+     * Table of a fixture, writes are serialized and the leader is published for lock-free reads
+     */
+    private static class FixtureStandings {
+        private final Map<Team, Standing> standingsByTeam = new HashMap<>();
+        private final TreeSet<Standing> ranking = new TreeSet<>(Comparator
+                .comparingLong((Standing s) -> s.points).reversed()
+                .thenComparingLong(s -> s.order));
+        /**
+         * Points already given by each recorded match, to subtract them if the result changes
+         */
+        private final Map<Long, Map<Team, Long>> pointsByMatch = new HashMap<>();
+        private volatile Team leader;
+
+        synchronized void record(Match match) {
+            Map<Team, Long> points = pointsOf(match);
+            if (match.id != null) {
+                Map<Team, Long> previous = pointsByMatch.put(match.id, points);
+                if (previous != null)
+                    previous.forEach((team, p) -> add(team, -p));
+            }
+            points.forEach(this::add);
+            leader = ranking.isEmpty() ? null : ranking.first().team;
+        }
+
+        private void add(Team team, long points) {
+            Standing standing = standingsByTeam.get(team);
+            if (standing == null) {
+                standing = new Standing(team, standingsByTeam.size());
+                standingsByTeam.put(team, standing);
+            } else {
+                ranking.remove(standing);
+            }
+            standing.points += points;
+            ranking.add(standing);
+        }
+
+        synchronized Map<Team, Long> table() {
+            Map<Team, Long> table = new LinkedHashMap<>();
+            for (Standing standing : ranking) {
+                table.put(standing.team, standing.points);
+            }
+            return table;
+        }
+    }
+
+    private static class Standing {
+        private final Team team;
+        /**
+         * Order in which the team entered the table, breaks the ties in points
+         */
+        private final int order;
+        private long points;
+
+        Standing(Team team, int order) {
+            this.team = team;
+            this.order = order;
+        }
+    }
+}
@@ -3,7 +3,16 @@ package com.getvaas.excercises.repository.login;
 import com.getvaas.excercises.core.domain.Fixture;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
+
 public interface FixtureRepository extends JpaRepository<Fixture, Integer> {
 
+    /**
+     * Finds the fixture a match belongs to
+     *
+     * @param matchId id of the match
+     * @return the fixture whose list of matches contains the match, empty if the match isn't part of a fixture
+     */
+    Optional<Fixture> findFirstByListaDePartidosId(Long matchId);
 
 }
@@ -1,9 +1,20 @@
 package com.getvaas.excercises.repository.login;
 
 import com.getvaas.excercises.core.domain.Match;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface MatchRepository extends JpaRepository<Match, Integer> {
 
+    /**
+     * Reads a slice of matches in id order, starting after a given id (keyset pagination)
+     *
+     * @param afterId  id of the last match of the previous slice
+     * @param pageable size of the slice, always the first page
+     * @return the matches with an id greater than {@code afterId}
+     */
+    List<Match> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
 
 }
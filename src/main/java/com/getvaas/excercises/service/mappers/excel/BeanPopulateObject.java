@@ -0,0 +1,327 @@
+package com.getvaas.excercises.service.mappers.excel;
+
+import com.getvaas.excercises.service.mappers.excel.model.PopulateObject;
+import com.getvaas.excercises.service.mappers.excel.model.RowBuffer;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Populates a java bean from the mapped data of a row calling its setters directly.
+ * The setters and the no-args constructor of the class are bound once, with {@link LambdaMetafactory}
+ * when possible and with plain {@link MethodHandle}s otherwise, so populating a row doesn't use reflection.
+ * Values are converted to the type of the setter when they don't match, e.g. a {@code Long} cell value
+ * for an {@code int} property; keys without a setter are ignored.
+ * Rows read from a {@link RowBuffer} pass the numbers to primitive setters without boxing them
+ *
+ * @param <T> type of the bean
+ */
+public class BeanPopulateObject<T> implements PopulateObject<T> {
+    private static final ClassValue<BeanPopulateObject<?>> populators = new ClassValue<BeanPopulateObject<?>>() {
+        @Override
+        protected BeanPopulateObject<?> computeValue(Class<?> type) {
+            return new BeanPopulateObject<>(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final Supplier<T> factory;
+    private final Map<String, Property<T>> properties;
+    /**
+     * Properties of the columns of the last row layout populated
+     */
+    private volatile ColumnProperties<T> columnProperties;
+
+    private BeanPopulateObject(Class<T> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        this.factory = bindConstructor(lookup, type);
+        Map<String, Property<T>> setters = new HashMap<>();
+        try {
+            BeanInfo beanInfo = Introspector.getBeanInfo(type, Object.class);
+            for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+                Method setter = descriptor.getWriteMethod();
+                if (setter != null) {
+                    Class<?> propertyType = setter.getParameterTypes()[0];
+                    Property<T> property = new Property<>(descriptor.getName(), propertyType,
+                            bindSetter(lookup, type, setter), coercer(propertyType));
+                    if (propertyType == long.class)
+                        property.longSetter = bindPrimitiveSetter(lookup, type, setter, ObjLongConsumer.class);
+                    else if (propertyType == int.class)
+                        property.intSetter = bindPrimitiveSetter(lookup, type, setter, ObjIntConsumer.class);
+                    else if (propertyType == double.class)
+                        property.doubleSetter = bindPrimitiveSetter(lookup, type, setter, ObjDoubleConsumer.class);
+                    setters.put(descriptor.getName(), property);
+                }
+            }
+        } catch (IntrospectionException e) {
+            throw new IllegalArgumentException("Can't introspect " + type.getName(), e);
+        }
+        this.properties = Collections.unmodifiableMap(setters);
+    }
+
+    /**
+     * Gets the populator of a bean class, it is created once per class
+     *
+     * @param type public class with a public no-args constructor and public setters
+     * @return the populator of the class
+     * @throws IllegalArgumentException if the class can't be instantiated
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanPopulateObject<T> of(Class<T> type) {
+        return (BeanPopulateObject<T>) populators.get(type);
+    }
+
+    @Override
+    public T populate(Map<String, Object> data) {
+        T bean = factory.get();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            Property<T> property = properties.get(entry.getKey());
+            if (property != null)
+                property.set(bean, entry.getValue());
+        }
+        return bean;
+    }
+
+    @Override
+    public T populate(RowBuffer row) {
+        Property<T>[] byColumn = propertiesOf(row.getFieldNames());
+        T bean = factory.get();
+        for (int column = 0; column < byColumn.length; column++) {
+            Property<T> property = byColumn[column];
+            if (property != null && row.isAssigned(column))
+                property.set(bean, row, column);
+        }
+        return bean;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Property<T>[] propertiesOf(List<String> fieldNames) {
+        ColumnProperties<T> current = columnProperties;
+        if (current == null || current.fieldNames != fieldNames) {
+            Property<T>[] byColumn = new Property[fieldNames.size()];
+            for (int column = 0; column < byColumn.length; column++) {
+                String fieldName = fieldNames.get(column);
+                byColumn[column] = fieldName != null ? properties.get(fieldName) : null;
+            }
+            current = new ColumnProperties<>(fieldNames, byColumn);
+            columnProperties = current;
+        }
+        return current.byColumn;
+    }
+
+    /**
+     * @return the class populated
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> bindConstructor(MethodHandles.Lookup lookup, Class<T> type) {
+        MethodHandle constructor;
+        try {
+            constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " doesn't have a public no-args constructor", e);
+        }
+        try {
+            CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "get",
+                    MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+                    constructor, MethodType.methodType(type));
+            return (Supplier<T>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            MethodHandle generic = constructor.asType(MethodType.methodType(Object.class));
+            return () -> {
+                try {
+                    return (T) generic.invokeExact();
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new IllegalStateException("Can't create " + type.getName(), ex);
+                }
+            };
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> BiConsumer<T, Object> bindSetter(MethodHandles.Lookup lookup, Class<T> type, Method setter) {
+        MethodHandle handle;
+        try {
+            handle = lookup.unreflect(setter);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Setter " + setter.getName() + " of " + type.getName()
+                    + " is not accessible", e);
+        }
+        Class<?> parameter = setter.getParameterTypes()[0];
+        try {
+            CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class), handle,
+                    MethodType.methodType(void.class, type, wrap(parameter)));
+            return (BiConsumer<T, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            MethodHandle generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (bean, value) -> {
+                try {
+                    generic.invokeExact(bean, value);
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new IllegalStateException("Can't call " + setter.getName(), ex);
+                }
+            };
+        }
+    }
+
+    /**
+     * Binds a setter with a primitive parameter to a primitive functional interface, {@code null} if it can't be bound
+     */
+    @SuppressWarnings("unchecked")
+    private static <C> C bindPrimitiveSetter(MethodHandles.Lookup lookup, Class<?> type, Method setter, Class<C> consumer) {
+        Class<?> parameter = setter.getParameterTypes()[0];
+        try {
+            CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "accept",
+                    MethodType.methodType(consumer),
+                    MethodType.methodType(void.class, Object.class, parameter), lookup.unreflect(setter),
+                    MethodType.methodType(void.class, type, parameter));
+            return (C) site.getTarget().invoke();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    /**
+     * Builds the conversion of a mapped value to the type of a property
+     */
+    private static Function<Object, Object> coercer(Class<?> type) {
+        Class<?> target = wrap(type);
+        if (target == String.class)
+            return value -> value instanceof String ? value : value.toString();
+        if (target == Long.class)
+            return value -> value instanceof Number ? ((Number) value).longValue() : parseLong(value.toString());
+        if (target == Integer.class)
+            return value -> value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString().trim());
+        if (target == Double.class)
+            return value -> value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString());
+        if (target == Float.class)
+            return value -> value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(value.toString());
+        if (target == Short.class)
+            return value -> value instanceof Number ? ((Number) value).shortValue() : Short.parseShort(value.toString().trim());
+        if (target == Byte.class)
+            return value -> value instanceof Number ? ((Number) value).byteValue() : Byte.parseByte(value.toString().trim());
+        if (target == Boolean.class)
+            return value -> value instanceof Boolean ? value : Boolean.valueOf(value.toString().trim());
+        if (target == BigDecimal.class)
+            return value -> value instanceof BigDecimal ? value : new BigDecimal(value.toString().trim());
+        if (target == LocalDate.class)
+            return value -> value instanceof LocalDate ? value : DateUtils.stringToDate(value.toString());
+        return value -> {
+            if (!target.isInstance(value))
+                throw new IllegalArgumentException("Can't assign a " + value.getClass().getName()
+                        + " to a property of type " + target.getName());
+            return value;
+        };
+    }
+
+    private static Long parseLong(String value) {
+        String trimmed = value.trim();
+        try {
+            return Long.parseLong(trimmed);
+        } catch (NumberFormatException e) {
+            return (long) Double.parseDouble(trimmed);
+        }
+    }
+
+    /**
+     * Setter of a property bound to its conversion
+     */
+    private static final class Property<T> {
+        private final String name;
+        private final boolean primitive;
+        private final BiConsumer<T, Object> setter;
+        private final Function<Object, Object> coercer;
+        private final Class<?> type;
+        private ObjLongConsumer<T> longSetter;
+        private ObjIntConsumer<T> intSetter;
+        private ObjDoubleConsumer<T> doubleSetter;
+
+        private Property(String name, Class<?> type, BiConsumer<T, Object> setter, Function<Object, Object> coercer) {
+            this.name = name;
+            this.type = wrap(type);
+            this.primitive = type.isPrimitive();
+            this.setter = setter;
+            this.coercer = coercer;
+        }
+
+        void set(T bean, Object value) {
+            if (value == null) {
+                // a primitive keeps its default value, as it would in a new instance
+                if (!primitive)
+                    setter.accept(bean, null);
+                return;
+            }
+            Object converted;
+            try {
+                converted = type.isInstance(value) ? value : coercer.apply(value);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Can't convert the value of " + name + ": " + value, e);
+            }
+            setter.accept(bean, converted);
+        }
+
+        void set(T bean, RowBuffer row, int column) {
+            if (!row.isNull(column)) {
+                RowBuffer.Kind kind = row.getKind(column);
+                boolean integral = kind == RowBuffer.Kind.LONG || kind == RowBuffer.Kind.INT;
+                if (longSetter != null && integral) {
+                    longSetter.accept(bean, row.getLong(column));
+                    return;
+                }
+                if (intSetter != null && kind == RowBuffer.Kind.INT) {
+                    intSetter.accept(bean, row.getInt(column));
+                    return;
+                }
+                if (doubleSetter != null && (integral || kind == RowBuffer.Kind.DOUBLE)) {
+                    doubleSetter.accept(bean, row.getDouble(column));
+                    return;
+                }
+            }
+            set(bean, row.getValue(column));
+        }
+    }
+
+    private static final class ColumnProperties<T> {
+        private final List<String> fieldNames;
+        private final Property<T>[] byColumn;
+
+        private ColumnProperties(List<String> fieldNames, Property<T>[] byColumn) {
+            this.fieldNames = fieldNames;
+            this.byColumn = byColumn;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.getvaas.excercises.service.mappers.excel;
+
+import com.getvaas.excercises.service.mappers.excel.model.DataType;
+import com.getvaas.excercises.service.mappers.excel.model.RowBuffer;
+import org.xlsx4j.model.CellUtils;
+import org.xlsx4j.sml.Cell;
+import org.xlsx4j.sml.STCellType;
+
+/**
+ * Converts the value of a cell to the java type of a {@link DataType}.
+ * There is one converter per data type, resolved once when the {@link ColumnPlan} is compiled
+ */
+public enum CellConverter {
+    LONG {
+        @Override
+        Object convertValue(Cell cell, STCellType type, CustomDataFormatter formatter, boolean date1904) {
+            return longValue(cell, type, formatter);
+        }
+
+        @Override
+        void write(Cell cell, STCellType type, CustomDataFormatter formatter, boolean date1904, RowBuffer row, int column) {
+            row.setLong(column, longValue(cell, type, formatter));
+        }
+    },
+    INT {
+        @Override
+        Object convertValue(Cell cell, STCellType type, CustomDataFormatter formatter, boolean date1904) {
+            return intValue(cell, type, formatter);
+        }
+
+        @Override
+        void write(Cell cell, STCellType type, CustomDataFormatter formatter, boolean date1904, RowBuffer row, int column) {
+            row.setInt(column, intValue(cell, type, formatter));
+        }
+    },
+    STRING {
+        @Override
+        Object convertValue(Cell cell, STCellType type, CustomDataFormatter formatter, boolean date1904) {
+            if (type == STCellType.N) {
+                Double doubleValue = CellUtils.getNumericCellValue(cell);
+                if (doubleValue % 1 == 0) {
+                    return Long.toString(doubleValue.longValue());
+                } else {
+                    return doubleValue.toString();
+                }
+            }
+            try {
+                return formatter.formatCellValue(cell);
+            } catch (Exception e) {
+                return "Error";
+            }
+        }
+    },
+    DOUBLE {
+        @Override
+        Object convertValue(Cell cell, STCellType type, CustomDataFormatter formatter, boolean date1904) {
+            return doubleValue(cell, type, formatter);
+        }
+
+        @Override
+        void write(Cell cell, STCellType type, CustomDataFormatter formatter, boolean date1904, RowBuffer row, int column) {
+            row.setDouble(column, doubleValue(cell, type, formatter));
+        }
+    },
+    LOCAL_DATE {
+        @Override
+        Object convertValue(Cell cell, STCellType type, CustomDataFormatter formatter, boolean date1904) {
+            if (type == STCellType.N && cell.getV() != null) {
+                double serial;
+                try {
+                    serial = Double.parseDouble(cell.getV());
+                } catch (NumberFormatException e) {
+                    return DateUtils.stringToDate(formatter.formatCellValue(cell));
+                }
+                return ExcelDates.toLocalDate(serial, date1904);
+            }
+            return DateUtils.stringToDate(formatter.formatCellValue(cell));
+        }
+    },
+    /**
+     * Used for data types without conversion, always returns {@code null}
+     */
+    NONE {
+        @Override
+        Object convertValue(Cell cell, STCellType type, CustomDataFormatter formatter, boolean date1904) {
+            return null;
+        }
+    };
+
+    /**
+     * Converts the value of the cell
+     *
+     * @param cell      the cell
+     * @param formatter formatter used when the value has to be read as text
+     * @return the converted value, {@code null} for boolean cells
+     */
+    public Object convert(Cell cell, CustomDataFormatter formatter) {
+        return convert(cell, formatter, false);
+    }
+
+    /**
+     * Converts the value of the cell
+     *
+     * @param cell      the cell
+     * @param formatter formatter used when the value has to be read as text
+     * @param date1904  whether the workbook of the cell uses the 1904 date system
+     * @return the converted value, {@code null} for boolean cells
+     */
+    public Object convert(Cell cell, CustomDataFormatter formatter, boolean date1904) {
+        STCellType type = cell.getT();
+        if (type == STCellType.B)
+            return null;
+        return convertValue(cell, type, formatter, date1904);
+    }
+
+    /**
+     * Converts the value of the cell and stores it in a row buffer, numbers are stored without boxing them
+     *
+     * @param cell      the cell
+     * @param formatter formatter used when the value has to be read as text
+     * @param date1904  whether the workbook of the cell uses the 1904 date system
+     * @param row       buffer of the row of the cell
+     * @param column    column of the cell
+     */
+    public void convertInto(Cell cell, CustomDataFormatter formatter, boolean date1904, RowBuffer row, int column) {
+        STCellType type = cell.getT();
+        if (type == STCellType.B)
+            return;
+        write(cell, type, formatter, date1904, row, column);
+    }
+
+    abstract Object convertValue(Cell cell, STCellType type, CustomDataFormatter formatter, boolean date1904);
+
+    void write(Cell cell, STCellType type, CustomDataFormatter formatter, boolean date1904, RowBuffer row, int column) {
+        row.setObject(column, convertValue(cell, type, formatter, date1904));
+    }
+
+    private static long longValue(Cell cell, STCellType type, CustomDataFormatter formatter) {
+        if (type == STCellType.N)
+            return (long) CellUtils.getNumericCellValue(cell);
+        return (long) Double.parseDouble(formatter.formatCellValue(cell));
+    }
+
+    private static int intValue(Cell cell, STCellType type, CustomDataFormatter formatter) {
+        if (type == STCellType.N)
+            return (int) CellUtils.getNumericCellValue(cell);
+        return Integer.parseInt(formatter.formatCellValue(cell));
+    }
+
+    private static double doubleValue(Cell cell, STCellType type, CustomDataFormatter formatter) {
+        if (type == STCellType.S || type == STCellType.INLINE_STR)
+            return Double.parseDouble(formatter.formatCellValue(cell));
+        return CellUtils.getNumericCellValue(cell);
+    }
+
+    /**
+     * @param dataType the data type of a field
+     * @return the converter for the data type
+     */
+    public static CellConverter forType(DataType dataType) {
+        if (dataType == null)
+            return NONE;
+        switch (dataType) {
+            case LONG:
+                return LONG;
+            case INT:
+                return INT;
+            case STRING:
+                return STRING;
+            case DOUBLE:
+                return DOUBLE;
+            case LOCAL_DATE:
+                return LOCAL_DATE;
+            default:
+                // TODO: lanzar exception
+                return NONE;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.getvaas.excercises.service.mappers.excel;
+
+import com.getvaas.excercises.service.mappers.excel.model.FieldIndex;
+import com.getvaas.excercises.service.mappers.excel.model.RowBuffer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lookup of the mapped columns of a sheet, compiled once from the {@link FieldIndex}es found
+ * in the header. The field and converter of each column are kept in dense arrays indexed by column,
+ * so finding the slot of a cell doesn't box the column index nor hash anything
+ */
+public final class ColumnPlan {
+    private final FieldIndex[] fieldIndexes;
+    private final String[] fieldNames;
+    private final CellConverter[] converters;
+    /**
+     * {@link #fieldNames} shared by the row buffers of the plan
+     */
+    private final List<String> fieldNameList;
+    /**
+     * Number of mapped columns
+     */
+    private final int size;
+
+    private ColumnPlan(FieldIndex[] fieldIndexes, String[] fieldNames, CellConverter[] converters, int size) {
+        this.fieldIndexes = fieldIndexes;
+        this.fieldNames = fieldNames;
+        this.converters = converters;
+        this.fieldNameList = Collections.unmodifiableList(Arrays.asList(fieldNames));
+        this.size = size;
+    }
+
+    /**
+     * Compiles the plan of a sheet
+     *
+     * @param fieldIndexMap position of each field, keyed by column index
+     * @return the compiled plan
+     */
+    public static ColumnPlan compile(Map<Integer, FieldIndex> fieldIndexMap) {
+        int maxColumn = -1;
+        for (Integer column : fieldIndexMap.keySet()) {
+            maxColumn = Math.max(maxColumn, column);
+        }
+        FieldIndex[] fieldIndexes = new FieldIndex[maxColumn + 1];
+        String[] fieldNames = new String[maxColumn + 1];
+        CellConverter[] converters = new CellConverter[maxColumn + 1];
+        int size = 0;
+        for (Map.Entry<Integer, FieldIndex> entry : fieldIndexMap.entrySet()) {
+            int column = entry.getKey();
+            if (column < 0 || entry.getValue() == null)
+                continue;
+            fieldIndexes[column] = entry.getValue();
+            fieldNames[column] = entry.getValue().getField().getFieldName();
+            converters[column] = CellConverter.forType(entry.getValue().getField().getDataType());
+            size++;
+        }
+        return new ColumnPlan(fieldIndexes, fieldNames, converters, size);
+    }
+
+    /**
+     * @param column index of the column (0-based)
+     * @return the field mapped in the column, or {@code null} if the column is not mapped
+     */
+    public FieldIndex getFieldIndex(int column) {
+        return column >= 0 && column < fieldIndexes.length ? fieldIndexes[column] : null;
+    }
+
+    /**
+     * @param column index of the column (0-based)
+     * @return name of the field mapped in the column, or {@code null} if the column is not mapped
+     */
+    public String getFieldName(int column) {
+        return column >= 0 && column < fieldNames.length ? fieldNames[column] : null;
+    }
+
+    /**
+     * @param column index of a mapped column (0-based)
+     * @return converter of the column
+     */
+    public CellConverter getConverter(int column) {
+        return converters[column];
+    }
+
+    /**
+     * @return a new buffer for the values of the rows of this plan
+     */
+    public RowBuffer newRowBuffer() {
+        return new RowBuffer(fieldNameList);
+    }
+
+    /**
+     * @return number of columns of the plan, mapped or not, i.e. the index of the last mapped column plus one
+     */
+    public int getColumnCount() {
+        return fieldIndexes.length;
+    }
+
+    /**
+     * @return number of mapped columns
+     */
+    public int size() {
+        return size;
+    }
+}
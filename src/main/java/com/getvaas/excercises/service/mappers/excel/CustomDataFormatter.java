@@ -1,10 +1,12 @@
 package com.getvaas.excercises.service.mappers.excel;
 
-import org.docx4j.XmlUtils;
+import com.getvaas.excercises.service.mappers.excel.strings.HeapSharedStringsTable;
+import com.getvaas.excercises.service.mappers.excel.strings.SharedStringsTable;
+import org.docx4j.openpackaging.parts.SpreadsheetML.SharedStrings;
+import org.docx4j.openpackaging.parts.SpreadsheetML.WorksheetPart;
 import org.docx4j.org.apache.poi.util.LocaleUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xlsx4j.jaxb.Context;
 import org.xlsx4j.model.CellUtils;
 import org.xlsx4j.org.apache.poi.ss.usermodel.DateUtil;
 import org.xlsx4j.org.apache.poi.ss.usermodel.ExcelGeneralNumberFormat;
@@ -17,11 +19,17 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  *  Reimplementation of org.apache.poi.ss.usermodel.DataFormatter
+ *  <p>
+ *  The formats built from format strings are kept in a cache shared by every instance. An instance created
+ *  with a fixed locale can be shared between threads, see {@link #shared()}; instances that adapt to
+ *  {@link LocaleUtil#setUserLocale(Locale)} must not be shared while the user locale changes
+ *  </p>
  */
 @SuppressWarnings("all")
 public class CustomDataFormatter implements Observer {
@@ -105,10 +113,22 @@ public class CustomDataFormatter implements Observer {
      * A map to cache formats.
      *  Map<String,Format> formats
      */
-    private final Map<String,Format> formats = new HashMap<>();
+    private final Map<String,Format> formats = new ConcurrentHashMap<>();
+
+    /**
+     * Formats built from format strings, shared by every formatter
+     */
+    private static final FormatCache sharedFormats = new FormatCache(FormatCache.DEFAULT_MAX_SIZE);
 
     private final boolean emulateCSV;
 
+    /**
+     * Shared strings part of the workbook this formatter is bound to and its resolved table,
+     * {@code null} if it isn't bound to a workbook
+     */
+    private SharedStrings sharedStringsPart;
+    private SharedStringsTable sharedStringsTable;
+
     /** stores the locale valid it the last formatting call */
     private Locale locale;
     
@@ -133,6 +153,20 @@ public class CustomDataFormatter implements Observer {
     /** For logging any problems we find */
 	protected static Logger logger = LoggerFactory.getLogger(CustomDataFormatter.class);
     
+    /**
+     * Formatter shared by the mappers, it uses the user locale at the time it is first requested
+     * and can be used from several threads at once
+     *
+     * @return the shared formatter
+     */
+    public static CustomDataFormatter shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    private static final class SharedHolder {
+        private static final CustomDataFormatter INSTANCE = new CustomDataFormatter(LocaleUtil.getUserLocale());
+    }
+
     /**
      * Creates a formatter using the {@link Locale#getDefault() default locale}.
      */
@@ -182,6 +216,21 @@ public class CustomDataFormatter implements Observer {
         this.emulateCSV = emulateCSV;
     }
 
+    /**
+     * Creates a formatter with the same locale and options as this one that resolves the shared strings of
+     * a workbook through its table. The table is released together with the returned formatter
+     *
+     * @param part  shared strings part of the workbook
+     * @param table resolved table of the part
+     * @return the formatter bound to the workbook
+     */
+    public CustomDataFormatter withSharedStrings(SharedStrings part, SharedStringsTable table) {
+        CustomDataFormatter bound = new CustomDataFormatter(locale, localeIsAdapting, emulateCSV);
+        bound.sharedStringsPart = Objects.requireNonNull(part);
+        bound.sharedStringsTable = Objects.requireNonNull(table);
+        return bound;
+    }
+
     /**
      * Return a Format for the given cell if one exists, otherwise try to
      * create one. This method will return <code>null</code> if the any of the
@@ -265,9 +314,15 @@ public class CustomDataFormatter implements Observer {
             return generalNumberFormat;
         }
         
-        // Build a formatter, and cache it
+        // Build a formatter, and cache it, formats falling back to a user supplied default are kept apart
+        if (defaultNumFormat == null) {
+            String sharedFormatStr = formatStr;
+            return sharedFormats.get(formatStr, locale, emulateCSV,
+                    () -> createFormat(cellValue, formatIndex, sharedFormatStr));
+        }
         format = createFormat(cellValue, formatIndex, formatStr);
-        formats.put(formatStr, format);
+        if (format != null)
+            formats.put(formatStr, format);
         return format;
     }
 
@@ -648,7 +703,11 @@ public class CustomDataFormatter implements Observer {
      *  supplied Date and format
      */
     private String performDateFormatting(Date d, Format dateFormat) {
-       return (dateFormat != null ? dateFormat : defaultDateformat).format(d);
+       Format format = dateFormat != null ? dateFormat : defaultDateformat;
+       // java.text formats are not thread-safe and the cached ones are shared
+       synchronized (format) {
+           return format.format(d);
+       }
     }
 
     /**
@@ -661,14 +720,17 @@ public class CustomDataFormatter implements Observer {
      */
     private String getFormattedDateString(Cell cell) {
         Format dateFormat = getFormat(cell);
-        if(dateFormat instanceof ExcelStyleDateFormatter) {
-           // Hint about the raw excel value
-           ((ExcelStyleDateFormatter)dateFormat).setDateToBeFormatted(
-                 CellUtils.getNumericCellValue(cell)
-           );
-        }
         Date d = CellUtils.getDateCellValue(cell);
         //Date d = cell.getDateCellValue();
+        if(dateFormat instanceof ExcelStyleDateFormatter) {
+           synchronized (dateFormat) {
+               // Hint about the raw excel value
+               ((ExcelStyleDateFormatter)dateFormat).setDateToBeFormatted(
+                     CellUtils.getNumericCellValue(cell)
+               );
+               return performDateFormatting(d, dateFormat);
+           }
+        }
         return performDateFormatting(d, dateFormat);
     }
 
@@ -688,7 +750,10 @@ public class CustomDataFormatter implements Observer {
         if (numberFormat == null) {
             return String.valueOf(d);
         }
-        String formatted = numberFormat.format(Double.valueOf(d));
+        String formatted;
+        synchronized (numberFormat) {
+            formatted = numberFormat.format(Double.valueOf(d));
+        }
         return formatted.replaceFirst("E(\\d)", "E+$1"); // to match Excel's E-notation
     }
 
@@ -712,11 +777,14 @@ public class CustomDataFormatter implements Observer {
         if(DateUtil.isADateFormat(formatIndex,formatString)) {
             if(DateUtil.isValidExcelDate(value)) {
                 Format dateFormat = getFormat(value, formatIndex, formatString);
+                Date d = DateUtil.getJavaDate(value, use1904Windowing);
                 if(dateFormat instanceof ExcelStyleDateFormatter) {
-                    // Hint about the raw excel value
-                    ((ExcelStyleDateFormatter)dateFormat).setDateToBeFormatted(value);
+                    synchronized (dateFormat) {
+                        // Hint about the raw excel value
+                        ((ExcelStyleDateFormatter)dateFormat).setDateToBeFormatted(value);
+                        return performDateFormatting(d, dateFormat);
+                    }
                 }
-                Date d = DateUtil.getJavaDate(value, use1904Windowing);
                 return performDateFormatting(d, dateFormat);
             }
             // RK: Invalid dates are 255 #s.
@@ -738,11 +806,13 @@ public class CustomDataFormatter implements Observer {
         // original method.
         String result;
         final String textValue = NumberToTextConverter.toText(value);
-        if (textValue.indexOf('E') > -1) {
-            result = numberFormat.format(Double.valueOf(value));
-        }
-        else {
-            result = numberFormat.format(new BigDecimal(textValue));
+        synchronized (numberFormat) {
+            if (textValue.indexOf('E') > -1) {
+                result = numberFormat.format(Double.valueOf(value));
+            }
+            else {
+                result = numberFormat.format(new BigDecimal(textValue));
+            }
         }
         // Complete scientific notation by adding the missing +.
         if (result.indexOf('E') > -1 && !result.contains("E-")) {
@@ -799,10 +869,8 @@ public class CustomDataFormatter implements Observer {
     }
     
     private String getCellStringValue(Cell c) {
-        List<CTRst> stringItems;
-        try {
-            stringItems = c.getWorksheetPart().getWorkbookPart().getSharedStrings().getJaxbElement().getSi();
-        } catch (NullPointerException e) {
+        SharedStrings sharedStrings = c.getT() == STCellType.INLINE_STR ? null : getSharedStrings(c);
+        if (sharedStrings == null) {
             return c.getIs().getT().getValue();
         }
     	
@@ -813,26 +881,25 @@ public class CustomDataFormatter implements Observer {
     		throw new RuntimeException(c.getV() + " can't be converted to an index into the shared strings table");
     	}
     	
-    	CTRst rst = stringItems.get(index);
-    	
-    	if (rst.getR().size()>0 
-    			&& rst.getT()!=null) {
-    		logger.error(XmlUtils.marshaltoString(rst, Context.jcSML));
-    		throw new RuntimeException("Shared string contained 2 types of data");
-    	}
-    	
-    	if (rst.getT()!=null) {
-    		return rst.getT().getValue();
-    	}
-    	
-    	// build value
-    	StringBuilder sb = new StringBuilder();
-    	for (CTRElt rElt : rst.getR()) {
-    		
-    		sb.append(rElt.getT().getValue() ); // TODO worry about whitespace
-    	}
-    	
-    	return sb.toString();    	
+    	if (sharedStrings == sharedStringsPart)
+    		return sharedStringsTable.get(index);
+    	return HeapSharedStringsTable.resolve(sharedStrings.getJaxbElement().getSi().get(index));
+    }
+
+    /**
+     * Shared strings part of the workbook of a cell, {@code null} for cells read without their workbook
+     */
+    private static SharedStrings getSharedStrings(Cell c) {
+        WorksheetPart worksheetPart;
+        try {
+            worksheetPart = c.getWorksheetPart();
+        } catch (NullPointerException e) {
+            // detached cells don't have a parent row
+            return null;
+        }
+        if (worksheetPart == null || worksheetPart.getWorkbookPart() == null)
+            return null;
+        return worksheetPart.getWorkbookPart().getSharedStrings();
     }
 
     /**
@@ -10,60 +10,213 @@ import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DateUtils {
 
     private static final int javaVersion = getJavaVersion();
+    private static final Locale ES = new Locale("es");
+    private static final Locale EN = new Locale("en");
+    /**
+     * Maximum number of parsed strings remembered, date columns repeat a few dates across the whole file
+     */
+    private static final int PARSED_DATES_MAX_SIZE = 4096;
+
+    // declared before the date shapes, which build their formatters on initialization
+    private static final Map<String, DateTimeFormatter> formatters = new ConcurrentHashMap<>();
+    private static final Map<String, LocalDate> parsedDates = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<String, DateFormat>> flexibleFormatters = ThreadLocal.withInitial(HashMap::new);
+
+    // token kinds of the date shapes
+    private static final int DIGITS = 0;
+    private static final int LETTERS = 1;
+    private static final int SLASH = 2;
+    private static final int COLON = 3;
+    private static final int SPACE = 4;
 
     // NOTE: this function will only work until the year 9999 you have to do a
     // refactoring
-    private static final Map<String, String> DATE_FORMAT_REGEXPS = new HashMap<String, String>() {
+    private static final DateShape[] DATE_SHAPES = {
+            new DateShape("yyyyMMdd", digits(8)),
+            new DateShape("dd/MM/yyyy", digits(1, 2), SLASH, digits(1, 2), SLASH, digits(4)),
+            new DateShape("dd/MMM/yy", digits(1, 2), SLASH, letters(3), SLASH, digits(2)),
+            new DateShape("yyyy/MM/dd", digits(4), SLASH, digits(1, 2), SLASH, digits(1, 2)),
+            new DateShape("yyyyMMddHHmm", digits(12)),
+            new DateShape("yyyyMMdd HHmm", digits(8), SPACE, digits(4)),
+            new DateShape("dd/MM/yyyy HH:mm", digits(1, 2), SLASH, digits(1, 2), SLASH, digits(4), SPACE,
+                    digits(1, 2), COLON, digits(2)),
+            new DateShape("yyyy/MM/dd HH:mm", digits(4), SLASH, digits(1, 2), SLASH, digits(1, 2), SPACE,
+                    digits(1, 2), COLON, digits(2)),
+            new DateShape("yyyyMMddHHmmss", digits(14)),
+            new DateShape("yyyyMMdd HHmmss", digits(8), SPACE, digits(6)),
+            new DateShape("dd/MM/yyyy HH:mm:ss", digits(1, 2), SLASH, digits(1, 2), SLASH, digits(4), SPACE,
+                    digits(1, 2), COLON, digits(2), COLON, digits(2)),
+            new DateShape("yyyy/MM/dd HH:mm:ss", digits(4), SLASH, digits(1, 2), SLASH, digits(1, 2), SPACE,
+                    digits(1, 2), COLON, digits(2), COLON, digits(2))
+    };
 
+    /**
+     * Shape of a date string: the tokens it is made of and the pattern used to parse it
+     */
+    private static final class DateShape {
+        private final String pattern;
+        private final DateTimeFormatter formatter;
         /**
-         * Serial version ID
+         * kind, minimum length and maximum length of each token, separators are always 1 char long
          */
-        private static final long serialVersionUID = 1L;
-
-        {
-            put("^\\d{8}$", "yyyyMMdd");
-            put("^\\d{1,2}/\\d{1,2}/\\d{4}$", "dd/MM/yyyy");
-            put("^\\d{1,2}/[a-zA-Z]{3}/\\d{2}$", "dd/MMM/yy");
-            put("^\\d{4}/\\d{1,2}/\\d{1,2}$", "yyyy/MM/dd");
-            put("^\\d{12}$", "yyyyMMddHHmm");
-            put("^\\d{8}\\h\\d{4}$", "yyyyMMdd HHmm");
-            put("^\\d{1,2}/\\d{1,2}/\\d{4}\\h\\d{1,2}:\\d{2}$", "dd/MM/yyyy HH:mm");
-            put("^\\d{4}/\\d{1,2}/\\d{1,2}\\h\\d{1,2}:\\d{2}$", "yyyy/MM/dd HH:mm");
-            put("^\\d{14}$", "yyyyMMddHHmmss");
-            put("^\\d{8}\\h\\d{6}$", "yyyyMMdd HHmmss");
-            put("^\\d{1,2}/\\d{1,2}/\\d{4}\\h\\d{1,2}:\\d{2}:\\d{2}$", "dd/MM/yyyy HH:mm:ss");
-            put("^\\d{4}/\\d{1,2}/\\d{1,2}\\h\\d{1,2}:\\d{2}:\\d{2}$", "yyyy/MM/dd HH:mm:ss");
+        private final int[][] tokens;
+
+        private DateShape(String pattern, Object... tokens) {
+            this.pattern = pattern;
+            this.formatter = formatter(pattern, ES);
+            this.tokens = new int[tokens.length][];
+            for (int i = 0; i < tokens.length; i++) {
+                this.tokens[i] = tokens[i] instanceof int[] ? (int[]) tokens[i] : new int[]{(Integer) tokens[i], 1, 1};
+            }
         }
-    };
 
-    private static String determineDateFormat(String dateString) {
-        for (String regexp : DATE_FORMAT_REGEXPS.keySet()) {
-            if (dateString.toLowerCase().matches(regexp)) {
-                return DATE_FORMAT_REGEXPS.get(regexp);
+        private boolean matches(int[] kinds, int[] lengths, int count) {
+            if (count != tokens.length)
+                return false;
+            for (int i = 0; i < count; i++) {
+                int[] token = tokens[i];
+                if (kinds[i] != token[0] || lengths[i] < token[1] || lengths[i] > token[2])
+                    return false;
             }
+            return true;
+        }
+    }
+
+    private static int[] digits(int length) {
+        return new int[]{DIGITS, length, length};
+    }
+
+    private static int[] digits(int min, int max) {
+        return new int[]{DIGITS, min, max};
+    }
+
+    private static int[] letters(int length) {
+        return new int[]{LETTERS, length, length};
+    }
+
+    /**
+     * Classifies a date string in a single pass: splits it in runs of digits, runs of letters and separators,
+     * and compares the runs with the known date shapes
+     *
+     * @param dateString date with "/" as the date separator
+     * @return the shape of the date, {@code null} if it is unknown
+     */
+    private static DateShape determineDateShape(String dateString) {
+        int length = dateString.length();
+        int[] kinds = new int[Math.min(length, 16)];
+        int[] lengths = new int[kinds.length];
+        int count = 0;
+        int i = 0;
+        while (i < length) {
+            if (count == kinds.length)
+                return null;
+            char c = dateString.charAt(i);
+            int kind;
+            int start = i;
+            if (c >= '0' && c <= '9') {
+                kind = DIGITS;
+                do {
+                    i++;
+                } while (i < length && dateString.charAt(i) >= '0' && dateString.charAt(i) <= '9');
+            } else if (isAsciiLetter(c)) {
+                kind = LETTERS;
+                do {
+                    i++;
+                } while (i < length && isAsciiLetter(dateString.charAt(i)));
+            } else if (c == '/') {
+                kind = SLASH;
+                i++;
+            } else if (c == ':') {
+                kind = COLON;
+                i++;
+            } else if (isHorizontalWhitespace(c)) {
+                kind = SPACE;
+                i++;
+            } else {
+                return null;
+            }
+            kinds[count] = kind;
+            lengths[count] = i - start;
+            count++;
+        }
+        for (DateShape shape : DATE_SHAPES) {
+            if (shape.matches(kinds, lengths, count))
+                return shape;
         }
         return null; // Unknown format.
     }
 
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Same characters as the {@code \h} regex class
+     */
+    private static boolean isHorizontalWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\u00A0' || c == '\u1680' || c == '\u180E'
+                || (c >= '\u2000' && c <= '\u200A') || c == '\u202F' || c == '\u205F' || c == '\u3000';
+    }
+
+    /**
+     * Replaces the alternative date separators "!-.|<>" with "/"
+     */
+    private static String standardizeSeparators(String date) {
+        char[] chars = null;
+        for (int i = 0; i < date.length(); i++) {
+            char c = date.charAt(i);
+            if (c == '!' || c == '-' || c == '.' || c == '|' || c == '<' || c == '>') {
+                if (chars == null)
+                    chars = date.toCharArray();
+                chars[i] = '/';
+            }
+        }
+        return chars == null ? date : new String(chars);
+    }
+
+    /**
+     * Gets a formatter of a pattern, formatters are built once and cached
+     *
+     * @param pattern the date pattern
+     * @param locale  the {@link Locale} of the formatter
+     * @return the formatter
+     */
+    public static DateTimeFormatter formatter(String pattern, Locale locale) {
+        return formatters.computeIfAbsent(locale.toLanguageTag() + '|' + pattern,
+                key -> DateTimeFormatter.ofPattern(pattern).withLocale(locale));
+    }
+
     /**
      * Parses a String to a Date
      * 
      * @param date the date string to be converted
      * @return the converted date
+     * @throws IllegalArgumentException if the date doesn't have a known format
      */
     public static LocalDate stringToDate(String date) {
-        String dateStandard = date.replaceAll("[!\\-.|<>]", "/");
-        String dateFormat = determineDateFormat(dateStandard);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(dateFormat).withLocale(new Locale("es"));
+        LocalDate localDate = parsedDates.get(date);
+        if (localDate != null)
+            return localDate;
+        String dateStandard = standardizeSeparators(date);
+        DateShape shape = determineDateShape(dateStandard);
+        if (shape == null)
+            throw new IllegalArgumentException("Unknown date format: " + date);
         try {
-            return LocalDate.parse(dateStandard, formatter);
+            localDate = LocalDate.parse(dateStandard, shape.formatter);
         } catch (DateTimeParseException e) { // Use the flexible format
-            return stringToDateFlexible(dateStandard, dateFormat);
+            localDate = stringToDateFlexible(dateStandard, shape.pattern);
         }
+        if (localDate != null) {
+            if (parsedDates.size() >= PARSED_DATES_MAX_SIZE)
+                parsedDates.clear();
+            parsedDates.put(date, localDate);
+        }
+        return localDate;
     }
 
     /**
@@ -75,9 +228,9 @@ public class DateUtils {
      *         returned
      */
     protected static LocalDate stringToDateFlexible(String date, String dateFormat) {
-        LocalDate localDate = stringToDateFlexible(date, dateFormat, new Locale("es"));
+        LocalDate localDate = stringToDateFlexible(date, dateFormat, ES);
         if (localDate == null)
-            localDate = stringToDateFlexible(date, dateFormat, new Locale("en"));
+            localDate = stringToDateFlexible(date, dateFormat, EN);
         return localDate;
     }
 
@@ -92,14 +245,16 @@ public class DateUtils {
      */
     protected static LocalDate stringToDateFlexible(String date, String dateFormat, Locale locale) {
         // Super special case: DateTime accepts "feb." but not "feb"
-        if (dateFormat.equals("dd/MMM/yy") && locale.equals(new Locale("es"))) {
+        if (dateFormat.equals("dd/MMM/yy") && locale.equals(ES)) {
             date = date.toLowerCase();
             if (javaVersion > 8) {
                 String split = date.split("/")[1];
                 date = date.replace(split, split + ".");
             }
         }
-        DateFormat formatter = new SimpleDateFormat(dateFormat, locale);
+        // SimpleDateFormat is not thread-safe, each thread keeps its own
+        DateFormat formatter = flexibleFormatters.get().computeIfAbsent(locale.toLanguageTag() + '|' + dateFormat,
+                key -> new SimpleDateFormat(dateFormat, locale));
         try {
             return formatter.parse(date).toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
         } catch (ParseException e) {
@@ -0,0 +1,70 @@
+package com.getvaas.excercises.service.mappers.excel;
+
+import java.time.LocalDate;
+
+/**
+ * Converts excel serial dates to {@link LocalDate} with plain day arithmetic, without going through
+ * {@link java.util.Date} and the time zone of the system
+ */
+public class ExcelDates {
+    private static final long DAY_MILLISECONDS = 24L * 60 * 60 * 1000;
+    /**
+     * Dates cached per epoch, serials up to 65535 cover every date until 2079
+     */
+    private static final int CACHE_SIZE = 65536;
+    /**
+     * Day 0 of the 1900 date system for serials from 61, which skip the fictitious 29/02/1900
+     */
+    private static final long EPOCH_1900 = LocalDate.of(1899, 12, 30).toEpochDay();
+    /**
+     * Day 0 of the 1900 date system for serials before 61
+     */
+    private static final long EPOCH_1900_BEFORE_LEAP_BUG = LocalDate.of(1899, 12, 31).toEpochDay();
+    private static final long EPOCH_1904 = LocalDate.of(1904, 1, 1).toEpochDay();
+
+    private static final LocalDate[] dates1900 = new LocalDate[CACHE_SIZE];
+    private static final LocalDate[] dates1904 = new LocalDate[CACHE_SIZE];
+
+    private ExcelDates() {
+    }
+
+    /**
+     * Gets the date of an excel serial date, the time of the day is discarded after rounding it to
+     * milliseconds as excel does, so a time of 23:59:59.9999 is the next day
+     *
+     * @param serial   the serial date, days since the epoch of the workbook plus the fraction of the day
+     * @param date1904 whether the workbook uses the 1904 date system
+     * @return the date
+     * @throws IllegalArgumentException if the serial is negative or not a number
+     */
+    public static LocalDate toLocalDate(double serial, boolean date1904) {
+        if (!(serial >= 0))
+            throw new IllegalArgumentException("Invalid excel date: " + serial);
+        long wholeDays = (long) serial;
+        long milliseconds = Math.round((serial - wholeDays) * DAY_MILLISECONDS);
+        if (milliseconds >= DAY_MILLISECONDS)
+            wholeDays++;
+        return toLocalDate(wholeDays, date1904);
+    }
+
+    private static LocalDate toLocalDate(long serialDay, boolean date1904) {
+        LocalDate[] cache = date1904 ? dates1904 : dates1900;
+        if (serialDay < CACHE_SIZE) {
+            LocalDate date = cache[(int) serialDay];
+            if (date == null) {
+                // concurrent threads may compute the same date, LocalDate is immutable so either copy is valid
+                date = LocalDate.ofEpochDay(epochDay(serialDay, date1904));
+                cache[(int) serialDay] = date;
+            }
+            return date;
+        }
+        return LocalDate.ofEpochDay(epochDay(serialDay, date1904));
+    }
+
+    private static long epochDay(long serialDay, boolean date1904) {
+        if (date1904)
+            return EPOCH_1904 + serialDay;
+        // excel counts 1900 as a leap year, the serial 60 is the 29/02/1900 and is read as the 01/03/1900
+        return (serialDay < 61 ? EPOCH_1900_BEFORE_LEAP_BUG : EPOCH_1900) + serialDay;
+    }
+}
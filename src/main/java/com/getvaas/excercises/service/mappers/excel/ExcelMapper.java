@@ -1,25 +1,51 @@
 package com.getvaas.excercises.service.mappers.excel;
 
+import com.getvaas.excercises.service.mappers.excel.cache.HeaderHint;
+import com.getvaas.excercises.service.mappers.excel.cache.WorkbookParseCache;
+import com.getvaas.excercises.service.mappers.excel.columnar.ColumnarSheet;
+import com.getvaas.excercises.service.mappers.excel.delta.DeltaTracker;
+import com.getvaas.excercises.service.mappers.excel.delta.RowFingerprints;
 import com.getvaas.excercises.service.mappers.excel.exceptions.ExcelMapperException;
+import com.getvaas.excercises.service.mappers.excel.exceptions.UncheckedExcelMapperException;
 import com.getvaas.excercises.service.mappers.excel.model.*;
 import com.getvaas.excercises.service.mappers.excel.search.Searcher;
+import com.getvaas.excercises.service.mappers.excel.streaming.SheetRowIterator;
+import com.getvaas.excercises.service.mappers.excel.streaming.XlsxStreamingReader;
+import com.getvaas.excercises.service.mappers.excel.strings.HeapSharedStringsTable;
+import com.getvaas.excercises.service.mappers.excel.strings.SharedStringsTable;
 import org.apache.commons.lang3.tuple.Pair;
 import org.docx4j.openpackaging.exceptions.Docx4JException;
 import org.docx4j.openpackaging.packages.SpreadsheetMLPackage;
+import org.docx4j.openpackaging.parts.SpreadsheetML.SharedStrings;
 import org.docx4j.openpackaging.parts.SpreadsheetML.WorkbookPart;
 import org.docx4j.openpackaging.parts.SpreadsheetML.WorksheetPart;
 import org.xlsx4j.exceptions.Xlsx4jException;
-import org.xlsx4j.model.CellUtils;
 import org.xlsx4j.sml.*;
+import reactor.core.publisher.Flux;
 
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.time.ZoneId;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
-public class ExcelMapper<T> {
+public class ExcelMapper<T> implements Closeable {
+    /**
+     * Rows buffered at a time in streaming mode when the searcher can find the header in any row of the sheet
+     */
+    private static final int STREAMING_SCAN_ROWS = 100;
     /**
      *
      */
@@ -30,9 +56,27 @@ public class ExcelMapper<T> {
     private final WorkbookPart workbookPart;
     private final SpreadsheetMLPackage opcPackagePkg;
     /**
-     *
+     * Reads the document row by row, only set when the mapper works in streaming mode,
+     * in that case the package is never loaded
+     */
+    private final XlsxStreamingReader streamingReader;
+    /**
+     * Whether the workbook uses the 1904 date system, serial dates are days since 01/01/1904 instead of 1900
+     */
+    private final boolean date1904;
+    /**
+     * Formats the cells, it is shared with the parallel row workers
+     */
+    CustomDataFormatter formatter = CustomDataFormatter.shared();
+    /**
+     * Shared strings of the loaded workbook, resolved once and released with the mapper
+     */
+    private SharedStringsTable sharedStringsTable;
+    /**
+     * {@link #formatter} bound to {@link #sharedStringsTable}, and the formatter it was created from
      */
-    CustomDataFormatter formatter = new CustomDataFormatter();
+    private CustomDataFormatter workbookFormatter;
+    private CustomDataFormatter workbookFormatterBase;
     /**
      * Variable that controls whether or not finding an error when mapping the data
      * throws an exception
@@ -46,6 +90,30 @@ public class ExcelMapper<T> {
      * ID of the warning style
      */
     private Long styleWarnID = null;
+    /**
+     * Executor used to map the rows in parallel, if {@code null} the rows are mapped in the calling thread
+     */
+    private Executor parallelExecutor = null;
+    /**
+     * Number of rows mapped by each parallel task
+     */
+    private int parallelChunkSize = DEFAULT_PARALLEL_CHUNK_SIZE;
+    /**
+     * Default number of rows mapped by each parallel task
+     */
+    public static final int DEFAULT_PARALLEL_CHUNK_SIZE = 2048;
+    /**
+     * Whether {@link #mapExcelToDTO} also returns the mapped data stored by column
+     */
+    private boolean columnarOutput = false;
+    /**
+     * How the rejected rows and the cells that can't be converted are reported
+     */
+    private ObservationMode observationMode = ObservationMode.ANNOTATE_WORKBOOK;
+    /**
+     * Keeps the headers found in previous uploads of the sheets, can be {@code null}
+     */
+    private WorkbookParseCache parseCache = null;
 
     public ExcelMapper(Searcher searcher, InputStream excelStream) throws IOException, Docx4JException {
         this(searcher, excelStream, false);
@@ -55,6 +123,9 @@ public class ExcelMapper<T> {
         this.searcher = searcher;
         opcPackagePkg = SpreadsheetMLPackage.load(excelStream);
         workbookPart = opcPackagePkg.getWorkbookPart();
+        streamingReader = null;
+        WorkbookPr workbookPr = workbookPart.getContents().getWorkbookPr();
+        date1904 = workbookPr != null && workbookPr.isDate1904();
 
         styleErrorID = Xlsx4jUtils.createBasicStyle(workbookPart,
                 new byte[]{(byte) 255, (byte) 255, (byte) 91, (byte) 91});
@@ -63,6 +134,101 @@ public class ExcelMapper<T> {
         this.strict = strict;
     }
 
+    private ExcelMapper(Searcher searcher, XlsxStreamingReader streamingReader, boolean strict) {
+        this.searcher = searcher;
+        this.streamingReader = streamingReader;
+        opcPackagePkg = null;
+        workbookPart = null;
+        date1904 = streamingReader.isDate1904();
+        this.strict = strict;
+    }
+
+    /**
+     * Creates a mapper that reads the worksheet xml row by row instead of loading the whole package,
+     * so the heap used to read the sheet does not depend on the number of rows of the sheet.
+     * {@link #mapExcelToDTO} still collects every mapped object in the response, use {@link #streamExcelToDTO}
+     * or {@link #fluxExcelToDTO} to process the objects without keeping them all in memory.
+     * Rows that don't pass the validation can't be highlighted, the response never contains a file with observations.
+     * The mapper must be closed to release the temporary copy of the document
+     *
+     * @param searcher    finds the header of the data
+     * @param excelStream the xlsx document
+     * @param strict      whether or not finding an error when mapping the data throws an exception
+     * @return a mapper in streaming mode
+     * @throws IOException if the document can't be read
+     */
+    public static <T> ExcelMapper<T> streaming(Searcher searcher, InputStream excelStream, boolean strict) throws IOException {
+        return new ExcelMapper<>(searcher, new XlsxStreamingReader(excelStream), strict);
+    }
+
+    /**
+     * Sets the formatter used to read the cells, by default the {@link CustomDataFormatter#shared() shared} one.
+     * It must be safe to use from several threads if the parallel mapping is enabled
+     *
+     * @param formatter formatter of the cells
+     */
+    public void setFormatter(CustomDataFormatter formatter) {
+        this.formatter = Objects.requireNonNull(formatter);
+    }
+
+    /**
+     * Enables the parallel mapping of rows in the {@link ForkJoinPool#commonPool() common pool}
+     *
+     * @see #setParallelMapping(Executor, int)
+     */
+    public void setParallelMapping(boolean parallel) {
+        setParallelMapping(parallel ? ForkJoinPool.commonPool() : null, DEFAULT_PARALLEL_CHUNK_SIZE);
+    }
+
+    /**
+     * Enables the parallel mapping of rows: the rows of the sheet are split in chunks that are mapped
+     * in the given executor, the mapped data keeps the order of the sheet and the rows that don't pass
+     * the validation are highlighted in the calling thread once all the chunks are done.
+     * The {@link Validator} and {@link PopulateObject} used must be thread-safe.
+     * It has no effect in streaming mode, where rows are read one at a time
+     *
+     * @param executor  executor where the chunks are mapped, {@code null} disables the parallel mapping
+     * @param chunkSize number of rows mapped by each task
+     */
+    public void setParallelMapping(Executor executor, int chunkSize) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("The chunk size must be positive");
+        this.parallelExecutor = executor;
+        this.parallelChunkSize = chunkSize;
+    }
+
+    /**
+     * Makes {@link #mapExcelToDTO} also return the rows that were mapped correctly as a {@link ColumnarSheet},
+     * in {@link MapperResponse#getColumnar()}. The lazy methods ({@link #streamExcelToDTO}, {@link #fluxExcelToDTO})
+     * ignore it
+     *
+     * @param columnarOutput whether the columnar result is built
+     */
+    public void setColumnarOutput(boolean columnarOutput) {
+        this.columnarOutput = columnarOutput;
+    }
+
+    /**
+     * Sets how the observations are reported. With {@link ObservationMode#REPORT} the document is not modified,
+     * {@link #mapExcelToDTO} returns the observations in {@link MapperResponse#getObservationReport()} instead of
+     * a file with observations, also in streaming mode
+     *
+     * @param observationMode how the observations are reported, by default {@link ObservationMode#ANNOTATE_WORKBOOK}
+     */
+    public void setObservationMode(ObservationMode observationMode) {
+        this.observationMode = Objects.requireNonNull(observationMode);
+    }
+
+    /**
+     * Sets the cache where the headers found are kept, the header of a sheet is only searched
+     * if it isn't in the same row and columns as in the last upload of the sheet
+     *
+     * @param parseCache cache of the headers, {@code null} to always search them
+     */
+    public void setParseCache(WorkbookParseCache parseCache) {
+        this.parseCache = parseCache;
+    }
+
     /**
      * @param fields         fields to map in excel
      * @param sheetName      name of the sheet that contains the data to be mapped,
@@ -77,25 +243,296 @@ public class ExcelMapper<T> {
     public MapperResponse<T> mapExcelToDTO(List<Field> fields, String sheetName, Validator<T> validator, PopulateObject<T> populateObject)
             throws Xlsx4jException, Docx4JException,
             ExcelMapperException {
+        try (DataRows dataRows = searchDataRows(fields, sheetName)) {
+            return populateData(dataRows, validator, populateObject);
+        } catch (IOException | UncheckedIOException e) {
+            throw new ExcelMapperException("Error reading sheet " + sheetName, e);
+        }
+    }
+
+    /**
+     * Maps only the rows that changed since the previous import of the sheet. Each row is identified by the value
+     * of a key field and its converted values are hashed into a fingerprint: rows with the same fingerprint as in
+     * the previous import are counted but not populated nor validated. Rows are mapped in the calling thread
+     *
+     * @param fields         fields to map in excel
+     * @param sheetName      name of the sheet that contains the data to be mapped
+     * @param validator      Check if a mapped row contains correct data
+     * @param populateObject help build the required object
+     * @param keyField       name of the numeric field that identifies the rows, e.g. the contract id
+     * @param previous       fingerprints of the previous import, {@code null} to map every row as inserted
+     * @return the inserted and updated rows, the keys of the deleted ones and the fingerprints of this import
+     */
+    public DeltaResponse<T> mapDelta(List<Field> fields, String sheetName, Validator<T> validator, PopulateObject<T> populateObject,
+                                     String keyField, RowFingerprints previous) throws Xlsx4jException, Docx4JException,
+            ExcelMapperException {
+        try (DataRows dataRows = searchDataRows(fields, sheetName)) {
+            DeltaTracker tracker = new DeltaTracker(previous, keyField);
+            RowMapper rowMapper = new RowMapper(dataRows.plan, validator, populateObject, cellFormatter(), false, null);
+            rowMapper.delta = tracker;
+            DeltaResponse<T> response = new DeltaResponse<>();
+            while (dataRows.rows.hasNext()) {
+                T data = rowMapper.map(dataRows.rows.next());
+                if (data == null)
+                    continue;
+                if (tracker.getLastChange() == DeltaTracker.Change.UPDATED)
+                    response.getUpdated().add(data);
+                else
+                    response.getInserted().add(data);
+            }
+            response.setUnchangedCount(tracker.getUnchangedCount());
+            response.setDeletedKeys(tracker.getDeletedKeys());
+            response.setFingerprints(tracker.getFingerprints());
+            response.setLevel(rowMapper.level);
+            return response;
+        } catch (IOException | UncheckedIOException e) {
+            throw new ExcelMapperException("Error reading sheet " + sheetName, e);
+        }
+    }
+
+    /**
+     * Maps several sheets of the workbook concurrently, in a pool with at most one thread per available processor
+     *
+     * @see #mapSheets(List, Executor)
+     */
+    public MultiSheetResponse mapSheets(List<SheetSpec<?>> specs) throws Xlsx4jException, Docx4JException, ExcelMapperException {
+        int threads = Math.max(1, Math.min(specs.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            return mapSheets(specs, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Maps several sheets of the workbook, which is loaded only once. The headers are searched one sheet at a time
+     * and then the rows of the sheets are mapped concurrently in the executor, the size of the executor bounds
+     * the number of sheets mapped at the same time. The {@link Validator}s and {@link PopulateObject}s used must be
+     * thread-safe if they are shared by several specs
+     *
+     * @param specs    sheets to map
+     * @param executor executor where the sheets are mapped
+     * @return the response of each sheet and the highest correctness level among them
+     */
+    public MultiSheetResponse mapSheets(List<SheetSpec<?>> specs, Executor executor) throws Xlsx4jException, Docx4JException,
+            ExcelMapperException {
+        loadSharedParts();
+        List<DataRows> sheets = new ArrayList<>(specs.size());
+        try {
+            for (SheetSpec<?> spec : specs) {
+                sheets.add(searchDataRows(spec.getFields(), spec.getSheetName()));
+            }
+            List<CompletableFuture<MapperResponse<?>>> futures = new ArrayList<>(specs.size());
+            for (int i = 0; i < specs.size(); i++) {
+                SheetSpec<?> spec = specs.get(i);
+                DataRows dataRows = sheets.get(i);
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return populateSheet(dataRows, spec);
+                    } catch (ExcelMapperException e) {
+                        throw new UncheckedExcelMapperException(e);
+                    }
+                }, executor));
+            }
+            MultiSheetResponse response = new MultiSheetResponse();
+            for (int i = 0; i < specs.size(); i++) {
+                try {
+                    putResponse(response, specs.get(i), futures.get(i).join());
+                } catch (CompletionException e) {
+                    futures.forEach(f -> f.cancel(false));
+                    if (e.getCause() instanceof UncheckedExcelMapperException)
+                        throw ((UncheckedExcelMapperException) e.getCause()).getCause();
+                    if (e.getCause() instanceof UncheckedIOException)
+                        throw new ExcelMapperException("Error reading sheet " + specs.get(i).getSheetName(), e.getCause());
+                    throw new ExcelMapperException("Error mapping sheet " + specs.get(i).getSheetName(), e.getCause());
+                }
+            }
+            return response;
+        } catch (IOException | UncheckedIOException e) {
+            throw new ExcelMapperException("Error reading sheets", e);
+        } finally {
+            for (DataRows dataRows : sheets) {
+                try {
+                    dataRows.close();
+                } catch (IOException ignored) {
+                    // the sheet was already read, only its temporary resources are released
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps the rows of a sheet with the types of its spec, the mapper only uses {@code T} to type the
+     * objects it returns so it can map the rows of any type
+     */
+    @SuppressWarnings("unchecked")
+    private <R> MapperResponse<R> populateSheet(DataRows dataRows, SheetSpec<R> spec) throws ExcelMapperException {
+        return ((ExcelMapper<R>) this).populateData(dataRows, spec.getValidator(), spec.getPopulateObject());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> void putResponse(MultiSheetResponse response, SheetSpec<R> spec, MapperResponse<?> sheetResponse) {
+        response.put(spec, (MapperResponse<R>) sheetResponse);
+    }
+
+    /**
+     * Same as {@link #mapExcelToDTO(List, String, Validator, PopulateObject)} but the rows are mapped lazily,
+     * as the stream is consumed. Only the header is searched before returning, rows that are empty or
+     * don't pass the validation are skipped. In streaming mode the sheet stays open until the stream is closed
+     *
+     * @param fields         fields to map in excel
+     * @param sheetName      name of the sheet that contains the data to be mapped
+     * @param validator      Check if a mapped row contains correct data
+     * @param populateObject help build the required object
+     * @return a sequential stream of the mapped rows, in the order of the sheet. Errors found while
+     * consuming it are thrown as {@link UncheckedExcelMapperException}
+     */
+    public Stream<T> streamExcelToDTO(List<Field> fields, String sheetName, Validator<T> validator, PopulateObject<T> populateObject)
+            throws Xlsx4jException, Docx4JException, ExcelMapperException {
+        DataRows dataRows;
+        try {
+            dataRows = searchDataRows(fields, sheetName);
+        } catch (IOException | UncheckedIOException e) {
+            throw new ExcelMapperException("Error reading sheet " + sheetName, e);
+        }
+        RowMapper rowMapper = new RowMapper(dataRows.plan, validator, populateObject, cellFormatter(), false, null);
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    while (dataRows.rows.hasNext()) {
+                        T data = rowMapper.map(dataRows.rows.next());
+                        if (data != null) {
+                            action.accept(data);
+                            return true;
+                        }
+                    }
+                    return false;
+                } catch (ExcelMapperException e) {
+                    throw new UncheckedExcelMapperException(e);
+                } catch (UncheckedIOException e) {
+                    throw new UncheckedExcelMapperException(new ExcelMapperException("Error reading sheet " + sheetName, e));
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                dataRows.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Reactive version of {@link #streamExcelToDTO(List, String, Validator, PopulateObject)}, rows are only read
+     * when requested by the subscriber and the sheet is closed when the flux completes or is cancelled
+     *
+     * @param fields         fields to map in excel
+     * @param sheetName      name of the sheet that contains the data to be mapped
+     * @param validator      Check if a mapped row contains correct data
+     * @param populateObject help build the required object
+     * @return a flux of the mapped rows, in the order of the sheet
+     */
+    public Flux<T> fluxExcelToDTO(List<Field> fields, String sheetName, Validator<T> validator, PopulateObject<T> populateObject) {
+        return Flux.using(() -> streamExcelToDTO(fields, sheetName, validator, populateObject), Flux::fromStream, Stream::close);
+    }
+
+    /**
+     * Finds the sheet and its header, and positions the rows right after the header
+     */
+    private DataRows searchDataRows(List<Field> fields, String sheetName) throws Xlsx4jException, Docx4JException,
+            ExcelMapperException, IOException {
+        if (streamingReader != null)
+            return streamingSearchDataRows(fields, sheetName);
         Integer indexSheet = this.searchIndexSheet(sheetName);
         WorksheetPart sheet = workbookPart.getWorksheet(indexSheet);
         SheetData sheetData = sheet.getContents().getSheetData();
-        Integer headerIndex = this.searcher.searchHeaderRow(sheetData, fields);
+        Integer headerIndex = searchHeaderRow(sheetData, fields, sheetName, 0);
+        if (headerIndex == null)
+            throw new ExcelMapperException("Header not found in sheet " + sheetName, null);
 
         Row headerRow = sheetData.getRow().get(headerIndex);
 
+        Map<Integer, FieldIndex> fieldIndexMap = searchFieldIndexes(headerRow, fields, indexSheet, headerIndex);
+        return new DataRows(fieldIndexMap, dataRows(sheetData, headerIndex));
+    }
+
+    /**
+     * Reads the rows where the header can be, searches the header among them and then maps
+     * the data rows one at a time, starting with the buffered rows that follow the header.
+     * If the searcher has no scan window the sheet is read {@value #STREAMING_SCAN_ROWS} rows at a time and the
+     * header is taken from the first group of rows where it is found, so the rows are not buffered until the end
+     */
+    private DataRows streamingSearchDataRows(List<Field> fields, String sheetName) throws ExcelMapperException, IOException {
+        int indexSheet = streamingReader.searchIndexSheet(sheetName);
+        SheetRowIterator rows = streamingReader.openSheet(indexSheet);
+        try {
+            SheetData scanWindow = new SheetData();
+            List<Row> scannedRows = scanWindow.getRow();
+            int maxScanRows = this.searcher.getMaxScanRows();
+            int windowRows = maxScanRows == Searcher.ALL_ROWS ? STREAMING_SCAN_ROWS : maxScanRows;
+            int firstRow = 0;
+            Integer headerIndex;
+            while (true) {
+                while (scannedRows.size() < windowRows && rows.hasNext()) {
+                    scannedRows.add(rows.next());
+                }
+                headerIndex = searchHeaderRow(scanWindow, fields, sheetName, firstRow);
+                if (headerIndex != null || windowRows == maxScanRows || !rows.hasNext())
+                    break;
+                firstRow += scannedRows.size();
+                scannedRows.clear();
+            }
+            if (headerIndex == null)
+                throw new ExcelMapperException("Header not found in sheet " + sheetName, null);
+            Row headerRow = scannedRows.get(headerIndex);
+            Map<Integer, FieldIndex> fieldIndexMap = searchFieldIndexes(headerRow, fields, indexSheet,
+                    firstRow + headerIndex);
+            return new DataRows(fieldIndexMap, scannedRows.subList(headerIndex + 1, scannedRows.size()), rows);
+        } catch (ExcelMapperException | RuntimeException e) {
+            rows.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Searches the header row, first checking the row where it was found in the last upload of the sheet
+     *
+     * @param sheetData rows where the header is searched
+     * @param firstRow  index in the sheet of the first of those rows
+     * @return index of the header among the rows, {@code null} if it isn't found
+     */
+    private Integer searchHeaderRow(SheetData sheetData, List<Field> fields, String sheetName, int firstRow) {
+        if (parseCache == null)
+            return this.searcher.searchHeaderRow(sheetData, fields);
+        List<Row> rows = sheetData.getRow();
+        HeaderHint hint = parseCache.getHeaderHint(sheetName, fields);
+        int hintIndex = hint != null ? hint.getRowIndex() - firstRow : -1;
+        if (hintIndex >= 0 && hintIndex < rows.size()
+                && hint.matches(this.searcher.searchColumns(rows.get(hintIndex), fields)))
+            return hintIndex;
+        Integer headerIndex = this.searcher.searchHeaderRow(sheetData, fields);
+        if (headerIndex != null)
+            parseCache.putHeaderHint(sheetName, fields,
+                    new HeaderHint(firstRow + headerIndex, this.searcher.searchColumns(rows.get(headerIndex), fields)));
+        return headerIndex;
+    }
+
+    private Map<Integer, FieldIndex> searchFieldIndexes(Row headerRow, List<Field> fields, int indexSheet, int headerIndex) {
         Map<Integer, FieldIndex> fieldIndexMap = new HashMap<>();
+        Map<Field, Integer> columns = this.searcher.searchColumns(headerRow, fields);
         for (Field field : fields) {
-            Integer column = this.searcher.searchColumn(headerRow, field);
+            Integer column = columns.get(field);
             if (column != null) {
                 FieldIndex fieldIndex = FieldIndex.FieldIndexBuilder.builder().sheetIndex(indexSheet)
                         .columnIndex(column + field.getOffsetData()).field(field).rowIndex(headerIndex).build();
                 fieldIndexMap.put(fieldIndex.getColumnIndex(), fieldIndex);
             }
         }
-        MapperResponse<T> data = populateData(fieldIndexMap, sheetData, headerIndex, validator, populateObject);
-
-        return data;
+        return fieldIndexMap;
     }
 
     /**
@@ -114,12 +551,26 @@ public class ExcelMapper<T> {
     public MapperResponse<T> simpleMapExcelToDTO(Map<Integer, FieldIndex> fieldIndexMap, int indexSheet, int dataStart,
                                                  Validator<T> validator, PopulateObject<T> populateObject) throws
             Xlsx4jException, Docx4JException, ExcelMapperException {
+        if (streamingReader != null) {
+            try (SheetRowIterator rows = streamingReader.openSheet(indexSheet)) {
+                for (int i = 0; i < dataStart && rows.hasNext(); i++) {
+                    rows.next();
+                }
+                return populateData(new DataRows(fieldIndexMap, rows), validator, populateObject);
+            } catch (IOException | UncheckedIOException e) {
+                throw new ExcelMapperException("Error reading sheet " + indexSheet, e);
+            }
+        }
         WorksheetPart sheet = workbookPart.getWorksheet(indexSheet);
         SheetData sheetData = sheet.getContents().getSheetData();
-        MapperResponse<T> data = populateData(fieldIndexMap, sheetData, dataStart - 1, validator, populateObject);
+        MapperResponse<T> data = populateData(new DataRows(fieldIndexMap, dataRows(sheetData, dataStart - 1)), validator, populateObject);
         return data;
     }
 
+    private List<Row> dataRows(SheetData sheet, long headerRow) {
+        return sheet.getRow().subList((int) headerRow + 1, sheet.getRow().size());
+    }
+
     private Integer searchIndexSheet(String name) throws Docx4JException {
         List sheets = workbookPart.getContents().getSheets().getSheet();
         Integer index = -1;
@@ -134,127 +585,351 @@ public class ExcelMapper<T> {
         return index;
     }
 
-    private MapperResponse<T> populateData(Map<Integer, FieldIndex> fieldIndexMap, SheetData sheet, long headerRow, Validator<T> validator, PopulateObject<T> populateObject) throws ExcelMapperException {
-        List<T> listData = new ArrayList<>();
-        CorrectnessLevel level = CorrectnessLevel.OK;
-        List<Row> rows = sheet.getRow().subList((int) headerRow + 1, sheet.getRow().size());
-        for (Row row : rows) {
-            Map<String, Object> rowData = new HashMap<>();
-            for (Cell cell : row.getC()) {
-                Pair<String, Object> cellContent = processCell(cell, fieldIndexMap);
-                if (cellContent != null) {
-                    rowData.put(cellContent.getLeft(), cellContent.getRight());
-                }
-            }
-            if (!ifEmptyData(rowData)) {
-                T data = populateObject.populate(rowData);
-                ValidationResult result = validator != null ? validator.validate(data) : null;
-                if (result == null || result.getLevel() == CorrectnessLevel.OK) {
+    private MapperResponse<T> populateData(DataRows dataRows, Validator<T> validator, PopulateObject<T> populateObject) throws ExcelMapperException {
+        List<T> listData;
+        CorrectnessLevel level;
+        ColumnarSheet.Builder columnar = columnarOutput ? new ColumnarSheet.Builder(dataRows.plan) : null;
+        ObservationReport report = observationMode == ObservationMode.REPORT ? new ObservationReport() : null;
+        if (parallelExecutor != null && dataRows.rowList != null && dataRows.rowList.size() > parallelChunkSize) {
+            listData = new ArrayList<>(dataRows.rowList.size());
+            level = parallelPopulateData(dataRows, validator, populateObject, listData, columnar, report);
+        } else {
+            listData = new ArrayList<>();
+            RowMapper rowMapper = new RowMapper(dataRows.plan, validator, populateObject, cellFormatter(), false, columnar);
+            while (dataRows.rows.hasNext()) {
+                T data = rowMapper.map(dataRows.rows.next());
+                if (data != null) {
                     listData.add(data);
-                } else {
-                    level = CorrectnessLevel.getHigherPriority(level, result.getLevel());
-                    Xlsx4jUtils.putObservationInRow(row,
-                            result.getLevel() == CorrectnessLevel.ERROR ? styleErrorID : styleWarnID,
-                            result.getMessage());
                 }
             }
+            level = rowMapper.level;
+            if (report != null)
+                report.addAll(rowMapper.report);
         }
         MapperResponse<T> mapperResponse = new MapperResponse<>();
         mapperResponse.setData(listData);
         mapperResponse.setLevel(level);
         mapperResponse.setSuccessCount(listData.size());
-        if (level != CorrectnessLevel.OK) {
-            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        if (columnar != null)
+            mapperResponse.setColumnar(columnar.build());
+        if (report != null)
+            mapperResponse.setObservationReport(report);
+        else if (level != CorrectnessLevel.OK && opcPackagePkg != null)
+            mapperResponse.setObservationWriter(this::saveWithObservations);
+        return mapperResponse;
+    }
+
+    /**
+     * Saves the package with the observations put so far, the rows of other sheets mapped
+     * later with this mapper are highlighted too
+     *
+     * @param out stream where the document is saved, it is not closed
+     */
+    private void saveWithObservations(OutputStream out) throws IOException {
+        try {
+            opcPackagePkg.save(new UnclosableOutputStream(out));
+        } catch (Docx4JException e) {
+            throw new IOException("Error saving the file with observations", e);
+        }
+    }
+
+    /**
+     * Maps the rows in chunks in the parallel executor, each chunk with its own row mapper. All the chunks
+     * share the {@link #cellFormatter() workbook formatter}, which can be used by several threads.
+     * The results are merged in the order of the sheet and the rejected rows are highlighted
+     * here, after all the chunks are done
+     *
+     * @param listData list where the mapped data is added
+     * @param columnar where the columns of the mapped data are added, can be {@code null}
+     * @param report   where the observations are added in {@link ObservationMode#REPORT} mode, otherwise {@code null}
+     * @return the highest correctness level found
+     */
+    private CorrectnessLevel parallelPopulateData(DataRows dataRows, Validator<T> validator, PopulateObject<T> populateObject,
+                                                  List<T> listData, ColumnarSheet.Builder columnar,
+                                                  ObservationReport report) throws ExcelMapperException {
+        CustomDataFormatter cellFormatter = cellFormatter();
+        List<Row> rows = dataRows.rowList;
+        List<CompletableFuture<RowMapper>> chunks = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += parallelChunkSize) {
+            List<Row> chunk = rows.subList(from, Math.min(from + parallelChunkSize, rows.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> {
+                RowMapper rowMapper = new RowMapper(dataRows.plan, validator, populateObject, cellFormatter, true,
+                        columnar != null ? new ColumnarSheet.Builder(dataRows.plan) : null);
+                try {
+                    for (Row row : chunk) {
+                        T data = rowMapper.map(row);
+                        if (data != null) {
+                            rowMapper.data.add(data);
+                        }
+                    }
+                } catch (ExcelMapperException e) {
+                    throw new UncheckedExcelMapperException(e);
+                }
+                return rowMapper;
+            }, parallelExecutor));
+        }
+        CorrectnessLevel level = CorrectnessLevel.OK;
+        for (CompletableFuture<RowMapper> chunk : chunks) {
+            RowMapper rowMapper;
             try {
-                this.opcPackagePkg.save(byteArrayOutputStream);
-                mapperResponse.setFileWithObservations(byteArrayOutputStream);
-            } catch (Exception e) {
-                e.printStackTrace();
+                rowMapper = chunk.join();
+            } catch (CompletionException e) {
+                chunks.forEach(c -> c.cancel(false));
+                if (e.getCause() instanceof UncheckedExcelMapperException)
+                    throw ((UncheckedExcelMapperException) e.getCause()).getCause();
+                throw new ExcelMapperException("Error mapping rows", e.getCause());
+            }
+            listData.addAll(rowMapper.data);
+            if (columnar != null)
+                columnar.appendAll(rowMapper.columnar);
+            if (report != null)
+                report.addAll(rowMapper.report);
+            level = CorrectnessLevel.getHigherPriority(level, rowMapper.level);
+            for (Pair<Row, ValidationResult> rejected : rowMapper.rejected) {
+                putObservation(rejected.getLeft(), rejected.getRight());
             }
         }
-        return mapperResponse;
+        return level;
     }
 
-    private Pair<String, Object> processCell(Cell cell, Map<Integer, FieldIndex> fieldIndexMap) throws ExcelMapperException {
-        Integer index = -1;
+    /**
+     * Loads the parts that are read while mapping any sheet, so they are not lazily loaded
+     * by several threads at the same time
+     */
+    private synchronized void loadSharedParts() throws ExcelMapperException {
+        if (workbookPart == null || sharedStringsTable != null)
+            return;
         try {
-            index = Xlsx4jUtils.getColumn(cell.getR());
-        } catch (Exception ignored) {
+            SharedStrings sharedStrings = workbookPart.getSharedStrings();
+            if (sharedStrings != null) {
+                CTSst sst = sharedStrings.getContents();
+                sharedStringsTable = sst != null ? HeapSharedStringsTable.lazy(sst.getSi())
+                        : HeapSharedStringsTable.of(Collections.emptyList());
+            }
+        } catch (Docx4JException e) {
+            throw new ExcelMapperException("Error loading shared strings", e);
         }
-        if (index == -1)
-            return null;
-        FieldIndex fieldIndex = fieldIndexMap.get(index);
-        if (fieldIndex == null)
-            return null;
-        String fieldName = fieldIndex.getField().getFieldName();
-        STCellType type = cell.getT();
-        if (type != STCellType.B) {
+    }
+
+    /**
+     * Formatter of the cells of the sheets, in a loaded workbook it resolves the shared strings
+     * through the table of this mapper
+     */
+    private synchronized CustomDataFormatter cellFormatter() throws ExcelMapperException {
+        loadSharedParts();
+        if (sharedStringsTable == null)
+            return formatter;
+        if (workbookFormatterBase != formatter) {
+            workbookFormatter = formatter.withSharedStrings(workbookPart.getSharedStrings(), sharedStringsTable);
+            workbookFormatterBase = formatter;
+        }
+        return workbookFormatter;
+    }
+
+    private void putObservation(Row row, ValidationResult result) {
+        if (opcPackagePkg != null)
+            Xlsx4jUtils.putObservationInRow(row,
+                    result.getLevel() == CorrectnessLevel.ERROR ? styleErrorID : styleWarnID,
+                    result.getMessage());
+    }
+
+    /**
+     * Converts a cell and puts its value in the row data, cells in columns that are not mapped are ignored
+     *
+     * @param report where the cells that can't be converted are recorded, if {@code null} they are highlighted
+     */
+    private void processCell(Cell cell, ColumnPlan plan, RowBuffer row, CustomDataFormatter formatter,
+                             ObservationReport report) throws ExcelMapperException {
+        long address = Xlsx4jUtils.parseAddress(cell.getR());
+        if (address == Xlsx4jUtils.INVALID_ADDRESS)
+            return;
+        int index = Xlsx4jUtils.columnOf(address);
+        if (plan.getFieldName(index) == null)
+            return;
+        if (cell.getT() != STCellType.B) {
             try {
-                Object val = handleType(cell, fieldIndex.getField());
-                return Pair.of(fieldName, val);
+                plan.getConverter(index).convertInto(cell, formatter, date1904, row, index);
             } catch (Exception e) {
-                cell.setS(styleErrorID);
+                if (report != null)
+                    report.add(Xlsx4jUtils.rowOf(address) + 1, index, CorrectnessLevel.ERROR,
+                            "Invalid value for " + plan.getFieldName(index));
+                else
+                    cell.setS(styleErrorID);
                 if (strict)
                     throw new ExcelMapperException("Error processing cell " + cell.getR(), e.getCause());
-                return Pair.of(fieldName, null);
+                row.setNull(index);
             }
         }
-        return null;
     }
 
-    private boolean ifEmptyData(Map<String, Object> data) {
-        for (Map.Entry<String, Object> entry : data.entrySet()) {
-            if (entry.getValue() != null)
-                return false;
+    /**
+     * Maps the data rows of a sheet one at a time
+     */
+    private class RowMapper {
+        private final ColumnPlan plan;
+        private final Validator<T> validator;
+        private final PopulateObject<T> populateObject;
+        private final CustomDataFormatter formatter;
+        /**
+         * If {@code true} the rejected rows are kept in {@link #rejected} instead of being highlighted
+         */
+        private final boolean deferObservations;
+        /**
+         * Highest correctness level found in the rows mapped so far
+         */
+        private CorrectnessLevel level = CorrectnessLevel.OK;
+        /**
+         * Data mapped by a parallel chunk
+         */
+        private final List<T> data = new ArrayList<>();
+        /**
+         * Rows that didn't pass the validation, when the observations are deferred
+         */
+        private final List<Pair<Row, ValidationResult>> rejected = new ArrayList<>();
+        /**
+         * Values of the row being mapped, reused for every row
+         */
+        private final RowBuffer buffer;
+        /**
+         * Where the values of the accepted rows are added, {@code null} if no columnar result is built
+         */
+        private final ColumnarSheet.Builder columnar;
+        /**
+         * Observations of the rows mapped, only in {@link ObservationMode#REPORT} mode
+         */
+        private final ObservationReport report;
+        /**
+         * Compares the rows with the previous import, only in delta mode
+         */
+        private DeltaTracker delta;
+
+        RowMapper(ColumnPlan plan, Validator<T> validator, PopulateObject<T> populateObject,
+                  CustomDataFormatter formatter, boolean deferObservations, ColumnarSheet.Builder columnar) {
+            this.plan = plan;
+            this.validator = validator;
+            this.populateObject = populateObject;
+            this.formatter = formatter;
+            this.deferObservations = deferObservations;
+            this.buffer = plan.newRowBuffer();
+            this.columnar = columnar;
+            this.report = observationMode == ObservationMode.REPORT ? new ObservationReport() : null;
         }
-        return true;
-    }
 
-    private Object handleType(Cell cell, Field field) {
-        STCellType type = cell.getT();
-        if (type == STCellType.B)
-            return null;
-        switch (field.getDataType()) {
-            case LONG:
-                if (type == STCellType.N)
-                    return ((Double) CellUtils.getNumericCellValue(cell)).longValue();
-                return (long) Double.parseDouble(formatter.formatCellValue(cell));
-            case INT:
-                if (type == STCellType.N)
-                    return ((Double) CellUtils.getNumericCellValue(cell)).intValue();
-                return Integer.parseInt(formatter.formatCellValue(cell));
-            case STRING:
-                if (type == STCellType.N) {
-                    Double doubleValue = CellUtils.getNumericCellValue(cell);
-                    if (doubleValue % 1 == 0) {
-                        return Long.toString(doubleValue.longValue());
-                    } else {
-                        return doubleValue.toString();
-                    }
-                }
-                try {
-                    return formatter.formatCellValue(cell);
-                } catch (Exception e) {
-                    return "Error";
-                }
-            case DOUBLE:
-                if (type == STCellType.S) {
-                    String s = formatter.formatCellValue(cell);
-                    return Double.parseDouble(s);
-                }
-                return CellUtils.getNumericCellValue(cell);
-            case LOCAL_DATE:
-                try {
-                    Date date = CellUtils.getDateCellValue(cell);
-                    return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-                } catch (IllegalStateException | NumberFormatException e) {
-                    String dateString = formatter.formatCellValue(cell);
-                    return DateUtils.stringToDate(dateString);
-                }
-            default:
-                // TODO: lanzar exception
+        /**
+         * @return the object mapped from the row, or {@code null} if the row is empty or doesn't pass the validation
+         */
+        T map(Row row) throws ExcelMapperException {
+            buffer.clear();
+            for (Cell cell : row.getC()) {
+                processCell(cell, plan, buffer, formatter, report);
+            }
+            if (buffer.isEmpty())
+                return null;
+            if (delta != null && delta.track(buffer) == DeltaTracker.Change.UNCHANGED)
                 return null;
+            T data = populateObject.populate(buffer);
+            ValidationResult result = validator != null ? validator.validate(data) : null;
+            if (result == null || result.getLevel() == CorrectnessLevel.OK) {
+                if (columnar != null)
+                    columnar.append(buffer);
+                return data;
+            }
+            level = CorrectnessLevel.getHigherPriority(level, result.getLevel());
+            if (delta != null)
+                delta.rejectLast();
+            if (report != null)
+                report.add(rowNumber(row), ObservationReport.NO_COLUMN, result.getLevel(), result.getMessage());
+            else if (deferObservations)
+                rejected.add(Pair.of(row, result));
+            else
+                putObservation(row, result);
+            return null;
+        }
+    }
+
+    /**
+     * Data rows of a sheet, positioned after the header
+     */
+    private static class DataRows implements Closeable {
+        private final ColumnPlan plan;
+        private final Iterator<Row> rows;
+        /**
+         * All the data rows, when the sheet is loaded in memory
+         */
+        private final List<Row> rowList;
+        /**
+         * Source of the rows that must be closed, only in streaming mode
+         */
+        private final Closeable source;
+
+        DataRows(Map<Integer, FieldIndex> fieldIndexMap, List<Row> rowList) {
+            this.plan = ColumnPlan.compile(fieldIndexMap);
+            this.rows = rowList.iterator();
+            this.rowList = rowList;
+            this.source = null;
+        }
+
+        DataRows(Map<Integer, FieldIndex> fieldIndexMap, SheetRowIterator rows) {
+            this(fieldIndexMap, Collections.emptyList(), rows);
+        }
+
+        /**
+         * @param bufferedRows rows already read from the sheet, they are mapped before the remaining rows
+         */
+        DataRows(Map<Integer, FieldIndex> fieldIndexMap, List<Row> bufferedRows, SheetRowIterator rows) {
+            this.plan = ColumnPlan.compile(fieldIndexMap);
+            this.rows = bufferedRows.isEmpty() ? rows : Stream.concat(bufferedRows.stream(),
+                    StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED), false)).iterator();
+            this.rowList = null;
+            this.source = rows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (source != null)
+                source.close();
+        }
+    }
+
+    /**
+     * @return number of the row in the sheet (1-based), taken from its first cell if the row doesn't have it
+     */
+    private static int rowNumber(Row row) {
+        if (row.getR() != null)
+            return row.getR().intValue();
+        for (Cell cell : row.getC()) {
+            long address = Xlsx4jUtils.parseAddress(cell.getR());
+            if (address != Xlsx4jUtils.INVALID_ADDRESS)
+                return Xlsx4jUtils.rowOf(address) + 1;
         }
+        return 0;
     }
 
+    /**
+     * Keeps the stream of the caller open when the package closes the zip it writes
+     */
+    private static class UnclosableOutputStream extends FilterOutputStream {
+        UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * Releases the temporary copy of the document used in streaming mode
+     */
+    @Override
+    public void close() throws IOException {
+        if (streamingReader != null)
+            streamingReader.close();
+    }
 }
@@ -0,0 +1,87 @@
+package com.getvaas.excercises.service.mappers.excel;
+
+import java.text.Format;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Concurrent cache of the formats built from excel format strings, shared by every {@link CustomDataFormatter}
+ * so each format string is compiled once per locale. When the cache is full an arbitrary entry is evicted,
+ * workbooks use few distinct formats so this is only a guard against unbounded growth
+ */
+final class FormatCache {
+    static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final int maxSize;
+    private final Map<Key, Format> formats = new ConcurrentHashMap<>();
+
+    FormatCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the format of a format string, building it if it isn't cached
+     *
+     * @param formatStr  excel format string
+     * @param locale     locale of the formatter
+     * @param emulateCSV whether the formatter emulates CSV output
+     * @param factory    builds the format, it can return {@code null}, in that case nothing is cached
+     * @return the format
+     */
+    Format get(String formatStr, Locale locale, boolean emulateCSV, Supplier<Format> factory) {
+        Key key = new Key(formatStr, locale, emulateCSV);
+        Format format = formats.get(key);
+        if (format != null)
+            return format;
+        format = factory.get();
+        if (format == null)
+            return null;
+        if (formats.size() >= maxSize)
+            evictOne();
+        Format previous = formats.putIfAbsent(key, format);
+        return previous != null ? previous : format;
+    }
+
+    private void evictOne() {
+        Iterator<Key> keys = formats.keySet().iterator();
+        if (keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    int size() {
+        return formats.size();
+    }
+
+    private static final class Key {
+        private final String formatStr;
+        private final Locale locale;
+        private final boolean emulateCSV;
+        private final int hash;
+
+        private Key(String formatStr, Locale locale, boolean emulateCSV) {
+            this.formatStr = formatStr;
+            this.locale = locale;
+            this.emulateCSV = emulateCSV;
+            this.hash = Objects.hash(formatStr, locale, emulateCSV);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return emulateCSV == key.emulateCSV && formatStr.equals(key.formatStr) && Objects.equals(locale, key.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -1,18 +1,28 @@
 package com.getvaas.excercises.service.mappers.excel;
 
+import com.getvaas.excercises.service.mappers.excel.cache.WorkbookParseCache;
+import com.getvaas.excercises.service.mappers.excel.delta.RowFingerprintStore;
 import com.getvaas.excercises.service.mappers.excel.exceptions.ExcelMapperException;
 import com.getvaas.excercises.service.mappers.excel.model.*;
 import com.getvaas.excercises.service.mappers.excel.search.SimpleSearcher;
 import org.docx4j.openpackaging.exceptions.Docx4JException;
 import org.xlsx4j.exceptions.Xlsx4jException;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class RawDataMapper {
     private static final List<Field> rowDataFields;
+    /**
+     * The "Raw Data" sheet as mapped through a {@link WorkbookParseCache}, a single instance so the uploads
+     * mapped with it share the cached responses
+     */
+    private static final SheetSpec<RawDataExcelDto> RAW_DATA_SPEC;
 
     static {
         List<String> reportDateS = Arrays.asList("Report Date");
@@ -54,13 +64,83 @@ public class RawDataMapper {
                 Field.Builder.aField().fieldName("arrearsBucket").dataType(DataType.STRING).synonyms(arrearsBucketS).build(),
                 Field.Builder.aField().fieldName("apr").dataType(DataType.STRING).synonyms(aprS).build()
         );
+        RAW_DATA_SPEC = SheetSpec.of("Raw Data", rowDataFields, new RawDataValidator(), new RawDataPopulate());
+    }
+
+    /**
+     * @return the fields of the "Raw Data" sheet
+     */
+    public static List<Field> getRowDataFields() {
+        return rowDataFields;
     }
 
     public static List<RawDataExcelDto> mapToDTO(InputStream excelStream) throws IOException, Docx4JException, Xlsx4jException, ExcelMapperException {
-        ExcelMapper<RawDataExcelDto> excelMapper = new ExcelMapper<>(new SimpleSearcher(), excelStream);
-        PopulateObject<RawDataExcelDto> populateObject = new RawDataPopulate();
-        Validator<RawDataExcelDto> validator = new RawDataValidator();
-        MapperResponse<RawDataExcelDto> mapperResponse = excelMapper.mapExcelToDTO(rowDataFields, "Raw Data", validator, populateObject);
-        return mapperResponse.getData();
+        try (ExcelMapper<RawDataExcelDto> excelMapper = ExcelMapper.streaming(new SimpleSearcher(), excelStream, false)) {
+            PopulateObject<RawDataExcelDto> populateObject = new RawDataPopulate();
+            Validator<RawDataExcelDto> validator = new RawDataValidator();
+            MapperResponse<RawDataExcelDto> mapperResponse = excelMapper.mapExcelToDTO(rowDataFields, "Raw Data", validator, populateObject);
+            return mapperResponse.getData();
+        }
+    }
+
+    /**
+     * Same as {@link #mapToDTO(InputStream)} but an upload identical to one already mapped returns the cached data,
+     * and the header is only searched if it moved since the last upload
+     *
+     * @param excelStream the document
+     * @param parseCache  cache of the uploads
+     * @return the mapped data, shared with the other uploads of the same document so it can't be modified
+     */
+    public static List<RawDataExcelDto> mapToDTO(InputStream excelStream, WorkbookParseCache parseCache) throws IOException,
+            Docx4JException, Xlsx4jException, ExcelMapperException {
+        return parseCache.map(excelStream, new SimpleSearcher(), RAW_DATA_SPEC, true).getData();
+    }
+
+    /**
+     * Maps only the rows of the "Raw Data" sheet that changed since the last import, rows are identified by their
+     * contract id. The store isn't modified: once the changes are persisted the caller must replace the stored
+     * fingerprints with the ones of the response, {@code fingerprints.put(dataset, delta.getFingerprints())}
+     *
+     * @param excelStream  the document
+     * @param fingerprints fingerprints of the previous imports
+     * @param dataset      name of the imported dataset in the store, e.g. the id of the trustee the document belongs to
+     * @return the inserted, updated and deleted rows and the fingerprints of this import
+     */
+    public static DeltaResponse<RawDataExcelDto> mapDeltaToDTO(InputStream excelStream, RowFingerprintStore fingerprints,
+                                                               String dataset)
+            throws IOException, Docx4JException, Xlsx4jException, ExcelMapperException {
+        try (ExcelMapper<RawDataExcelDto> excelMapper = ExcelMapper.streaming(new SimpleSearcher(), excelStream, false)) {
+            return excelMapper.mapDelta(rowDataFields, "Raw Data", new RawDataValidator(), new RawDataPopulate(),
+                    "contractId", fingerprints.get(dataset));
+        }
+    }
+
+    /**
+     * Maps the "Raw Data" sheet lazily, rows are read from the document as the stream is consumed.
+     * The stream must be closed to release the document
+     */
+    public static Stream<RawDataExcelDto> streamToDTO(InputStream excelStream) throws IOException, Docx4JException, Xlsx4jException, ExcelMapperException {
+        ExcelMapper<RawDataExcelDto> excelMapper = ExcelMapper.streaming(new SimpleSearcher(), excelStream, false);
+        try {
+            return excelMapper.streamExcelToDTO(rowDataFields, "Raw Data", new RawDataValidator(), new RawDataPopulate())
+                    .onClose(() -> {
+                        try {
+                            excelMapper.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (Docx4JException | Xlsx4jException | ExcelMapperException | RuntimeException e) {
+            excelMapper.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reactive version of {@link #streamToDTO(InputStream)}, rows are read on demand of the subscriber
+     * and the document is released when the flux completes, fails or is cancelled
+     */
+    public static Flux<RawDataExcelDto> fluxToDTO(InputStream excelStream) {
+        return Flux.using(() -> streamToDTO(excelStream), Flux::fromStream, Stream::close);
     }
 }
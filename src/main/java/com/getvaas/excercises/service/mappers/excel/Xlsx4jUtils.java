@@ -12,6 +12,11 @@ import java.util.List;
  * Various methods for dealing with the Xlsx4jUtils low level API
  */
 public class Xlsx4jUtils {
+    /**
+     * Value returned by {@link #parseAddress(CharSequence)} when the address is not valid
+     */
+    public static final long INVALID_ADDRESS = -1L;
+
     /**
      * Gets the first row from a reference range. This field must follow the pattern
      * begin:end for xlsx files, e.g. A3:C5
@@ -22,8 +27,7 @@ public class Xlsx4jUtils {
      *                                  pattern
      */
     public static int getFirstRowFromRange(String range) throws IllegalArgumentException {
-        checkRangeFormat(range);
-        return getRow(range.split(":")[0]);
+        return rowOf(parseRangeStart(range));
     }
 
     /**
@@ -36,8 +40,7 @@ public class Xlsx4jUtils {
      *                                  pattern
      */
     public static int getLastRowFromRange(String range) throws IllegalArgumentException {
-        checkRangeFormat(range);
-        return getRow(range.split(":")[1]);
+        return rowOf(parseRangeEnd(range));
     }
 
     /**
@@ -49,8 +52,7 @@ public class Xlsx4jUtils {
      *                                  pattern
      */
     public static int getRow(String address) throws IllegalArgumentException {
-        checkAddressFormat(address);
-        return Integer.valueOf(address.replaceAll("[A-Z]", "")) - 1;
+        return rowOf(checkAddressFormat(address));
     }
 
     /**
@@ -63,8 +65,7 @@ public class Xlsx4jUtils {
      *                                  pattern
      */
     public static int getFirstColumnFromRange(String range) throws IllegalArgumentException {
-        checkRangeFormat(range);
-        return getColumn(range.split(":")[0]);
+        return columnOf(parseRangeStart(range));
     }
 
     /**
@@ -77,8 +78,7 @@ public class Xlsx4jUtils {
      *                                  pattern
      */
     public static int getLastColumnFromRange(String range) throws IllegalArgumentException {
-        checkRangeFormat(range);
-        return getColumn(range.split(":")[1]);
+        return columnOf(parseRangeEnd(range));
     }
 
     /**
@@ -90,16 +90,70 @@ public class Xlsx4jUtils {
      *                                  pattern
      */
     public static int getColumn(String address) throws IllegalArgumentException {
-        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-        checkAddressFormat(address);
-        String column = address.replaceAll("[0-9]", "");
-        int colIndex = 0;
-        int multiplier = 1;
-        for (int i = column.length() - 1; i > -1; i--) {
-            colIndex += (alphabet.indexOf(column.charAt(i)) + 1) * multiplier;
-            multiplier *= alphabet.length();
+        return columnOf(checkAddressFormat(address));
+    }
+
+    /**
+     * Parses an address that follows the xlsx pattern, e.g. C5, without allocating.
+     * The column and the row are packed in a single long, use {@link #columnOf(long)} and
+     * {@link #rowOf(long)} to read them
+     *
+     * @param address the address, can be {@code null}
+     * @return the packed column and row (both 0-based), or {@link #INVALID_ADDRESS} if the address
+     * doesn't match the required pattern
+     */
+    public static long parseAddress(CharSequence address) {
+        if (address == null)
+            return INVALID_ADDRESS;
+        return parseAddress(address, 0, address.length());
+    }
+
+    /**
+     * Parses the address found between {@code start} (inclusive) and {@code end} (exclusive)
+     *
+     * @see #parseAddress(CharSequence)
+     */
+    private static long parseAddress(CharSequence address, int start, int end) {
+        int i = start;
+        long column = 0;
+        while (i < end) {
+            char c = address.charAt(i);
+            if (c < 'A' || c > 'Z')
+                break;
+            column = column * 26 + (c - 'A' + 1);
+            if (column > Integer.MAX_VALUE)
+                return INVALID_ADDRESS;
+            i++;
         }
-        return colIndex - 1;
+        if (i == start || i == end || address.charAt(i) == '0')
+            return INVALID_ADDRESS;
+        long row = 0;
+        while (i < end) {
+            char c = address.charAt(i);
+            if (c < '0' || c > '9')
+                return INVALID_ADDRESS;
+            row = row * 10 + (c - '0');
+            if (row > Integer.MAX_VALUE)
+                return INVALID_ADDRESS;
+            i++;
+        }
+        return ((column - 1) << 32) | (row - 1);
+    }
+
+    /**
+     * @param address an address packed by {@link #parseAddress(CharSequence)}
+     * @return the column (0-based)
+     */
+    public static int columnOf(long address) {
+        return (int) (address >>> 32);
+    }
+
+    /**
+     * @param address an address packed by {@link #parseAddress(CharSequence)}
+     * @return the row (0-based)
+     */
+    public static int rowOf(long address) {
+        return (int) address;
     }
 
     /**
@@ -117,13 +171,43 @@ public class Xlsx4jUtils {
     }
 
     protected static void checkRangeFormat(String range) {
-        if (!range.matches("[A-Z]+[1-9][0-9]*:[A-Z]+[1-9][0-9]*"))
+        parseRangeEnd(range);
+    }
+
+    /**
+     * @return the packed address
+     * @throws IllegalArgumentException if the address doesn't match the required pattern
+     */
+    protected static long checkAddressFormat(String address) {
+        long parsed = parseAddress(address);
+        if (parsed == INVALID_ADDRESS)
             throw new IllegalArgumentException();
+        return parsed;
     }
 
-    protected static void checkAddressFormat(String address) {
-        if (!address.matches("[A-Z]+[1-9][0-9]*"))
+    /**
+     * @return the packed first address of a valid range
+     * @throws IllegalArgumentException if the range doesn't match the required pattern
+     */
+    private static long parseRangeStart(String range) {
+        parseRangeEnd(range);
+        return parseAddress(range, 0, range.indexOf(':'));
+    }
+
+    /**
+     * Checks the whole range and parses its last address
+     *
+     * @return the packed last address of the range
+     * @throws IllegalArgumentException if the range doesn't match the required pattern
+     */
+    private static long parseRangeEnd(String range) {
+        int separator = range.indexOf(':');
+        if (separator < 0 || parseAddress(range, 0, separator) == INVALID_ADDRESS)
+            throw new IllegalArgumentException();
+        long end = parseAddress(range, separator + 1, range.length());
+        if (end == INVALID_ADDRESS)
             throw new IllegalArgumentException();
+        return end;
     }
 
     protected static CTXf generateCTXf(Long borderId, Long XfId, Long numFmtId, Long fontId, Long fillId,
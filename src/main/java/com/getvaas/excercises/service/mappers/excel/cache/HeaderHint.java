@@ -0,0 +1,43 @@
+package com.getvaas.excercises.service.mappers.excel.cache;
+
+import com.getvaas.excercises.service.mappers.excel.model.Field;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Header found in a previous upload of a sheet: the index of its row and the column of each field.
+ * A new upload of the sheet can use it if the same row still has the fields in the same columns
+ */
+public final class HeaderHint {
+    private final int rowIndex;
+    private final Map<Field, Integer> columns;
+
+    public HeaderHint(int rowIndex, Map<Field, Integer> columns) {
+        this.rowIndex = rowIndex;
+        this.columns = Collections.unmodifiableMap(new HashMap<>(columns));
+    }
+
+    /**
+     * @return index of the header row among the rows of the sheet
+     */
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    /**
+     * @return column of each field found in the header
+     */
+    public Map<Field, Integer> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @param columns columns of the fields found in the row of the hint in a new upload
+     * @return {@code true} if they are the same columns of the hint
+     */
+    public boolean matches(Map<Field, Integer> columns) {
+        return !this.columns.isEmpty() && this.columns.equals(columns);
+    }
+}
@@ -0,0 +1,91 @@
+package com.getvaas.excercises.service.mappers.excel.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Copy of an uploaded document in a temporary file, with the SHA-256 of its content computed while
+ * it was copied. The file is deleted when the upload is closed
+ */
+public final class SpooledUpload implements Closeable {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path file;
+    private final String sha256;
+    private final long size;
+
+    private SpooledUpload(Path file, String sha256, long size) {
+        this.file = file;
+        this.sha256 = sha256;
+        this.size = size;
+    }
+
+    /**
+     * Copies an upload to a temporary file, the stream is read once and not closed
+     *
+     * @param upload content of the document
+     * @return the copy of the document
+     * @throws IOException if the upload can't be read or copied
+     */
+    public static SpooledUpload spool(InputStream upload) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        Path file = Files.createTempFile("upload-", ".xlsx");
+        try {
+            long size;
+            try (OutputStream out = Files.newOutputStream(file)) {
+                size = new DigestInputStream(upload, digest).transferTo(out);
+            }
+            return new SpooledUpload(file, toHex(digest.digest()), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * @return SHA-256 of the content, in hexadecimal
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * @return size of the content in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return a new stream of the content, it must be closed by the caller
+     */
+    public InputStream openStream() throws IOException {
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,270 @@
+package com.getvaas.excercises.service.mappers.excel.cache;
+
+import com.getvaas.excercises.service.mappers.excel.ExcelMapper;
+import com.getvaas.excercises.service.mappers.excel.columnar.ColumnarSheet;
+import com.getvaas.excercises.service.mappers.excel.exceptions.ExcelMapperException;
+import com.getvaas.excercises.service.mappers.excel.model.Field;
+import com.getvaas.excercises.service.mappers.excel.model.MapperResponse;
+import com.getvaas.excercises.service.mappers.excel.model.ObservationReport;
+import com.getvaas.excercises.service.mappers.excel.model.SheetSpec;
+import com.getvaas.excercises.service.mappers.excel.search.Searcher;
+import org.docx4j.openpackaging.exceptions.Docx4JException;
+import org.xlsx4j.exceptions.Xlsx4jException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache of the results of mapping uploaded workbooks, for the files that are uploaded again after fixing a few rows.
+ * <ul>
+ * <li>The responses are keyed by the SHA-256 of the upload, computed while it is copied to a temporary file, and
+ * by the sheet spec, so an identical upload mapped the same way returns the previous response without loading
+ * the package. They are evicted in LRU order when the total weight, an estimate of the heap retained by the
+ * responses, exceeds the maximum</li>
+ * <li>The header found in each sheet is kept as a {@link HeaderHint}, a new upload of the sheet checks that row
+ * first and only searches the header if it has changed</li>
+ * </ul>
+ * The cached responses are detached from the mapper: the data can't be modified and the document with the
+ * observations is saved once when the upload is mapped, so the package isn't kept in memory. They are shared by
+ * every caller that uploads the same file, the observation report must not be modified
+ */
+public class WorkbookParseCache {
+    /**
+     * Default maximum weight of the cached responses, 256MB of heap
+     */
+    public static final long DEFAULT_MAX_WEIGHT = 256L * 1024 * 1024;
+    /**
+     * Estimated heap taken by each value of a mapped object: the reference in the object plus the boxed value,
+     * string or date it points to
+     */
+    private static final long OBJECT_VALUE_BYTES = 48;
+    /**
+     * Estimated heap taken by each value of a {@link ColumnarSheet}, held in primitive arrays
+     */
+    private static final long COLUMNAR_VALUE_BYTES = 8;
+    /**
+     * Heap taken by each observation of an {@link ObservationReport}, kept in primitive arrays
+     */
+    private static final long OBSERVATION_BYTES = 13;
+    /**
+     * Maximum number of header hints, there is one per sheet and list of fields
+     */
+    private static final int MAX_HEADER_HINTS = 256;
+
+    private final long maxWeight;
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private final LinkedHashMap<ResponseKey, CachedResponse> responses = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<HintKey, HeaderHint> headerHints = new LinkedHashMap<HintKey, HeaderHint>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<HintKey, HeaderHint> eldest) {
+            return size() > MAX_HEADER_HINTS;
+        }
+    };
+
+    public WorkbookParseCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * @param maxWeight maximum estimated size in bytes of the responses kept in the heap
+     */
+    public WorkbookParseCache(long maxWeight) {
+        if (maxWeight < 0)
+            throw new IllegalArgumentException("The maximum weight can't be negative");
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Maps a sheet of an upload, or returns the response of a previous identical upload of the same sheet
+     *
+     * @param upload    content of the workbook, it is read once and not closed
+     * @param searcher  finds the header of the data
+     * @param spec      sheet to map
+     * @param streaming whether the workbook is read {@link ExcelMapper#streaming row by row}
+     * @return the response of the sheet
+     */
+    public <T> MapperResponse<T> map(InputStream upload, Searcher searcher, SheetSpec<T> spec, boolean streaming)
+            throws IOException, Docx4JException, Xlsx4jException, ExcelMapperException {
+        try (SpooledUpload spooled = SpooledUpload.spool(upload)) {
+            ResponseKey key = new ResponseKey(spooled.getSha256(), spec);
+            MapperResponse<T> cached = getResponse(key);
+            if (cached != null)
+                return cached;
+            MapperResponse<T> detached = new MapperResponse<>();
+            long observationsSize = 0;
+            try (InputStream in = spooled.openStream();
+                 ExcelMapper<T> mapper = streaming ? ExcelMapper.streaming(searcher, in, false) : new ExcelMapper<>(searcher, in)) {
+                mapper.setParseCache(this);
+                MapperResponse<T> response = mapper.mapExcelToDTO(spec.getFields(), spec.getSheetName(), spec.getValidator(), spec.getPopulateObject());
+                detached.setData(response.getData() != null ? Collections.unmodifiableList(new ArrayList<>(response.getData())) : null);
+                detached.setLevel(response.getLevel());
+                detached.setSuccessCount(response.getSuccessCount());
+                detached.setObservationReport(response.getObservationReport());
+                detached.setColumnar(response.getColumnar());
+                if (response.hasObservations()) {
+                    ByteArrayOutputStream observations = new ByteArrayOutputStream();
+                    response.writeObservations(observations);
+                    detached.setFileWithObservations(observations);
+                    observationsSize = observations.size();
+                }
+            }
+            putResponse(key, detached, weigh(detached, spec.getFields().size()) + observationsSize);
+            return detached;
+        }
+    }
+
+    /**
+     * Estimates the heap retained by a response from the number of mapped values, the document with the
+     * observations is weighed apart
+     *
+     * @param fieldCount number of fields of each mapped object
+     */
+    private static long weigh(MapperResponse<?> response, int fieldCount) {
+        long weight = 0;
+        if (response.getData() != null)
+            weight += (long) response.getData().size() * fieldCount * OBJECT_VALUE_BYTES;
+        ColumnarSheet columnar = response.getColumnar();
+        if (columnar != null)
+            weight += (long) columnar.getRowCount() * columnar.getColumns().size() * COLUMNAR_VALUE_BYTES;
+        if (response.getObservationReport() != null)
+            weight += (long) response.getObservationReport().size() * OBSERVATION_BYTES;
+        return weight;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> MapperResponse<T> getResponse(ResponseKey key) {
+        CachedResponse cached = responses.get(key);
+        if (cached == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return (MapperResponse<T>) cached.response;
+    }
+
+    private synchronized void putResponse(ResponseKey key, MapperResponse<?> response, long size) {
+        if (size > maxWeight)
+            return;
+        CachedResponse previous = responses.put(key, new CachedResponse(response, size));
+        if (previous != null)
+            weight -= previous.weight;
+        weight += size;
+        Iterator<CachedResponse> eldest = responses.values().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @param sheetName name of the sheet as requested to the mapper
+     * @param fields    fields searched in the header
+     * @return the header found in the last upload of the sheet, or {@code null} if it wasn't mapped before
+     */
+    public synchronized HeaderHint getHeaderHint(String sheetName, List<Field> fields) {
+        return headerHints.get(new HintKey(sheetName, fields));
+    }
+
+    public synchronized void putHeaderHint(String sheetName, List<Field> fields, HeaderHint hint) {
+        headerHints.put(new HintKey(sheetName, fields), hint);
+    }
+
+    /**
+     * Removes all the cached responses and header hints
+     */
+    public synchronized void clear() {
+        responses.clear();
+        headerHints.clear();
+        weight = 0;
+    }
+
+    /**
+     * @return estimated size in bytes of the cached responses
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private static final class CachedResponse {
+        private final MapperResponse<?> response;
+        private final long weight;
+
+        private CachedResponse(MapperResponse<?> response, long weight) {
+            this.response = response;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Sheet of an upload, the fields are compared by identity as they are usually constants of the mappers
+     */
+    private static class HintKey {
+        final String sheetName;
+        final List<Field> fields;
+
+        HintKey(String sheetName, List<Field> fields) {
+            this.sheetName = sheetName;
+            this.fields = fields;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            HintKey key = (HintKey) o;
+            return fields == key.fields && sheetName.equals(key.sheetName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sheetName.hashCode() + System.identityHashCode(fields);
+        }
+    }
+
+    /**
+     * Upload mapped with a sheet spec, the validator and the populator are compared by identity
+     */
+    private static final class ResponseKey extends HintKey {
+        private final String sha256;
+        private final Object validator;
+        private final Object populateObject;
+
+        ResponseKey(String sha256, SheetSpec<?> spec) {
+            super(spec.getSheetName(), spec.getFields());
+            this.sha256 = sha256;
+            this.validator = spec.getValidator();
+            this.populateObject = spec.getPopulateObject();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!super.equals(o))
+                return false;
+            ResponseKey key = (ResponseKey) o;
+            return validator == key.validator && populateObject == key.populateObject && sha256.equals(key.sha256);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(super.hashCode(), sha256, System.identityHashCode(validator), System.identityHashCode(populateObject));
+        }
+    }
+}
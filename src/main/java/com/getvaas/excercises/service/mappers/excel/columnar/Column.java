@@ -0,0 +1,177 @@
+package com.getvaas.excercises.service.mappers.excel.columnar;
+
+import com.getvaas.excercises.service.mappers.excel.model.DataType;
+import com.getvaas.excercises.service.mappers.excel.model.RowBuffer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Values of a field for every row of a {@link ColumnarSheet}, stored in a primitive array.
+ * Rows without a value are recorded in a bitmap, the slot of the array keeps a default value
+ */
+public abstract class Column {
+    static final int INITIAL_CAPACITY = 1024;
+
+    private final String name;
+    private final DataType type;
+    private long[] nulls = new long[0];
+    private int nullCount;
+    int size;
+
+    Column(String name, DataType type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * Creates an empty column
+     *
+     * @param name name of the field
+     * @param type type of the field
+     * @return column that stores the values of the type
+     */
+    static Column create(String name, DataType type) {
+        switch (type) {
+            case LONG:
+                return new LongColumn(name);
+            case INT:
+                return new IntColumn(name);
+            case DOUBLE:
+                return new DoubleColumn(name);
+            case LOCAL_DATE:
+                return new DateColumn(name);
+            default:
+                return new StringColumn(name);
+        }
+    }
+
+    /**
+     * @return name of the field of the column
+     */
+    public String getName() {
+        return name;
+    }
+
+    public DataType getType() {
+        return type;
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row index of the row
+     * @return {@code true} if the row has no value in this column
+     */
+    public boolean isNull(int row) {
+        int word = row >>> 6;
+        return word < nulls.length && (nulls[word] & (1L << row)) != 0;
+    }
+
+    /**
+     * @return number of rows without a value
+     */
+    public int getNullCount() {
+        return nullCount;
+    }
+
+    /**
+     * @param row index of the row
+     * @return value of the row, boxed, or {@code null} if it has no value
+     */
+    public abstract Object getValue(int row);
+
+    /**
+     * Grows the value array so it can hold at least {@code capacity} rows
+     */
+    abstract void ensureCapacity(int capacity);
+
+    /**
+     * Stores the value of a column of a row buffer in a slot
+     *
+     * @return {@code false} if the buffer doesn't hold a value of the type of this column
+     */
+    abstract boolean set(int index, RowBuffer row, int column);
+
+    /**
+     * Copies the values of a column of the same type after the rows of this one
+     */
+    abstract void copyValues(Column other, int offset);
+
+    abstract void writeValues(DataOutput out) throws IOException;
+
+    abstract void readValues(DataInput in) throws IOException;
+
+    /**
+     * Appends the value of a column of a row buffer
+     */
+    void append(RowBuffer row, int column) {
+        ensureCapacity(size + 1);
+        if (row.isNull(column) || !set(size, row, column))
+            markNull(size);
+        size++;
+    }
+
+    /**
+     * Appends all the rows of a column of the same type
+     */
+    void appendAll(Column other) {
+        ensureCapacity(size + other.size);
+        copyValues(other, size);
+        for (int row = 0; row < other.size; row++) {
+            if (other.isNull(row))
+                markNull(size + row);
+        }
+        size += other.size;
+    }
+
+    private void markNull(int row) {
+        int word = row >>> 6;
+        if (word >= nulls.length)
+            nulls = Arrays.copyOf(nulls, Math.max(word + 1, nulls.length * 2));
+        nulls[word] |= 1L << row;
+        nullCount++;
+    }
+
+    static int grow(int length, int capacity) {
+        return Math.max(capacity, Math.max(INITIAL_CAPACITY, length + (length >> 1)));
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeUTF(name);
+        out.writeUTF(type.name());
+        out.writeInt(size);
+        int words = (size + 63) >>> 6;
+        for (int word = 0; word < words; word++) {
+            out.writeLong(word < nulls.length ? nulls[word] : 0L);
+        }
+        writeValues(out);
+    }
+
+    static Column read(DataInput in) throws IOException {
+        String name = in.readUTF();
+        DataType type;
+        try {
+            type = DataType.valueOf(in.readUTF());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown column type", e);
+        }
+        Column column = create(name, type);
+        column.size = in.readInt();
+        column.nulls = new long[(column.size + 63) >>> 6];
+        for (int word = 0; word < column.nulls.length; word++) {
+            column.nulls[word] = in.readLong();
+            column.nullCount += Long.bitCount(column.nulls[word]);
+        }
+        column.ensureCapacity(column.size);
+        column.readValues(in);
+        return column;
+    }
+}
@@ -0,0 +1,223 @@
+package com.getvaas.excercises.service.mappers.excel.columnar;
+
+import com.getvaas.excercises.service.mappers.excel.ColumnPlan;
+import com.getvaas.excercises.service.mappers.excel.model.DataType;
+import com.getvaas.excercises.service.mappers.excel.model.FieldIndex;
+import com.getvaas.excercises.service.mappers.excel.model.RowBuffer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mapped rows of a sheet stored by column: one primitive array per field, or dictionary codes for the
+ * string fields, keyed by {@link com.getvaas.excercises.service.mappers.excel.model.Field#getFieldName() field name}.
+ * Scanning or aggregating a column reads a single array without allocating anything.
+ * It can be saved to a compact binary file with {@link #writeTo(OutputStream)} and loaded back with {@link #readFrom(InputStream)}
+ */
+public final class ColumnarSheet {
+    /**
+     * "XCOL", first bytes of the binary file
+     */
+    private static final int MAGIC = 0x58434F4C;
+    private static final int VERSION = 1;
+
+    private final Map<String, Column> columns;
+    private final int rowCount;
+
+    private ColumnarSheet(Map<String, Column> columns, int rowCount) {
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the columns, in the order of the sheet
+     */
+    public List<Column> getColumns() {
+        return Collections.unmodifiableList(new ArrayList<>(columns.values()));
+    }
+
+    /**
+     * @param fieldName name of a field
+     * @return the column of the field, or {@code null} if the field wasn't mapped
+     */
+    public Column getColumn(String fieldName) {
+        return columns.get(fieldName);
+    }
+
+    public LongColumn getLongColumn(String fieldName) {
+        return getColumn(fieldName, LongColumn.class);
+    }
+
+    public IntColumn getIntColumn(String fieldName) {
+        return getColumn(fieldName, IntColumn.class);
+    }
+
+    public DoubleColumn getDoubleColumn(String fieldName) {
+        return getColumn(fieldName, DoubleColumn.class);
+    }
+
+    public NumericColumn getNumericColumn(String fieldName) {
+        return getColumn(fieldName, NumericColumn.class);
+    }
+
+    public StringColumn getStringColumn(String fieldName) {
+        return getColumn(fieldName, StringColumn.class);
+    }
+
+    public DateColumn getDateColumn(String fieldName) {
+        return getColumn(fieldName, DateColumn.class);
+    }
+
+    private <C extends Column> C getColumn(String fieldName, Class<C> type) {
+        Column column = columns.get(fieldName);
+        if (column == null)
+            return null;
+        if (!type.isInstance(column))
+            throw new IllegalArgumentException("The field " + fieldName + " is of type " + column.getType());
+        return type.cast(column);
+    }
+
+    /**
+     * Sums a numeric column grouped by the values of a string column
+     *
+     * @param valueField name of a numeric field, e.g. the outstanding balance
+     * @param groupField name of a string field, e.g. the arrears bucket
+     * @return sum of each group, in the order the groups were found in the sheet
+     */
+    public Map<String, Double> sumBy(String valueField, String groupField) {
+        NumericColumn values = getNumericColumn(valueField);
+        StringColumn groups = getStringColumn(groupField);
+        if (values == null || groups == null)
+            throw new IllegalArgumentException("Field not mapped: " + (values == null ? valueField : groupField));
+        double[] sums = values.sumBy(groups);
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int code = 0; code < sums.length; code++) {
+            result.put(groups.getDictionary().get(code), sums[code]);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the sheet in binary format, the stream is not closed
+     *
+     * @param out stream where the sheet is written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(rowCount);
+        data.writeInt(columns.size());
+        for (Column column : columns.values()) {
+            column.write(data);
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a sheet written by {@link #writeTo(OutputStream)}, the stream is not closed
+     *
+     * @param in stream positioned at the start of the sheet
+     * @return the sheet
+     * @throws IOException if the stream can't be read or doesn't contain a sheet
+     */
+    public static ColumnarSheet readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC)
+            throw new IOException("Not a columnar sheet");
+        int version = data.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported columnar sheet version " + version);
+        int rowCount = data.readInt();
+        int columnCount = data.readInt();
+        Map<String, Column> columns = new LinkedHashMap<>();
+        for (int i = 0; i < columnCount; i++) {
+            Column column = Column.read(data);
+            if (column.size() != rowCount)
+                throw new IOException("Column " + column.getName() + " has " + column.size() + " rows, expected " + rowCount);
+            columns.put(column.getName(), column);
+        }
+        return new ColumnarSheet(columns, rowCount);
+    }
+
+    /**
+     * Collects the mapped rows of a sheet column by column. A builder is used by a single thread,
+     * the builders of the chunks mapped in parallel are joined with {@link #appendAll(Builder)}
+     */
+    public static final class Builder {
+        /**
+         * Column of the row buffer read into each column
+         */
+        private final int[] sourceColumns;
+        private final Column[] columns;
+        private int rowCount;
+
+        /**
+         * @param plan columns of the sheet, columns of fields without {@link DataType} are left out
+         */
+        public Builder(ColumnPlan plan) {
+            List<Integer> sources = new ArrayList<>();
+            List<Column> columns = new ArrayList<>();
+            for (int column = 0; column < plan.getColumnCount(); column++) {
+                FieldIndex fieldIndex = plan.getFieldIndex(column);
+                if (fieldIndex == null || fieldIndex.getField().getDataType() == null)
+                    continue;
+                sources.add(column);
+                columns.add(Column.create(fieldIndex.getField().getFieldName(), fieldIndex.getField().getDataType()));
+            }
+            this.sourceColumns = sources.stream().mapToInt(Integer::intValue).toArray();
+            this.columns = columns.toArray(new Column[0]);
+        }
+
+        /**
+         * Appends the values of a mapped row
+         *
+         * @param row buffer of a row mapped with the plan of this builder
+         */
+        public void append(RowBuffer row) {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].append(row, sourceColumns[i]);
+            }
+            rowCount++;
+        }
+
+        /**
+         * Appends the rows collected by another builder of the same plan
+         */
+        public void appendAll(Builder other) {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].appendAll(other.columns[i]);
+            }
+            rowCount += other.rowCount;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * @return the sheet with the rows appended so far, the builder must not be used afterwards
+         */
+        public ColumnarSheet build() {
+            Map<String, Column> byName = new LinkedHashMap<>();
+            for (Column column : columns) {
+                byName.put(column.getName(), column);
+            }
+            return new ColumnarSheet(byName, rowCount);
+        }
+    }
+}
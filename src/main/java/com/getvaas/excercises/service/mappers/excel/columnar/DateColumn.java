@@ -0,0 +1,77 @@
+package com.getvaas.excercises.service.mappers.excel.columnar;
+
+import com.getvaas.excercises.service.mappers.excel.model.DataType;
+import com.getvaas.excercises.service.mappers.excel.model.RowBuffer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Column of a {@link DataType#LOCAL_DATE} field, the dates are stored as days since the epoch
+ */
+public final class DateColumn extends Column {
+    private int[] epochDays = new int[0];
+
+    DateColumn(String name) {
+        super(name, DataType.LOCAL_DATE);
+    }
+
+    /**
+     * @param row index of the row
+     * @return value of the row, {@code null} if it has no value
+     */
+    public LocalDate get(int row) {
+        return isNull(row) ? null : LocalDate.ofEpochDay(epochDays[row]);
+    }
+
+    /**
+     * @param row index of the row
+     * @return value of the row as {@link LocalDate#toEpochDay() days since the epoch},
+     * only meaningful if the row {@link #isNull(int) has a value}
+     */
+    public int getEpochDay(int row) {
+        return epochDays[row];
+    }
+
+    @Override
+    public Object getValue(int row) {
+        return get(row);
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (capacity > epochDays.length)
+            epochDays = Arrays.copyOf(epochDays, grow(epochDays.length, capacity));
+    }
+
+    @Override
+    boolean set(int index, RowBuffer row, int column) {
+        Object value = row.getValue(column);
+        if (!(value instanceof LocalDate))
+            return false;
+        epochDays[index] = (int) ((LocalDate) value).toEpochDay();
+        return true;
+    }
+
+    @Override
+    void copyValues(Column other, int offset) {
+        System.arraycopy(((DateColumn) other).epochDays, 0, epochDays, offset, other.size);
+    }
+
+    @Override
+    void writeValues(DataOutput out) throws IOException {
+        for (int row = 0; row < size; row++) {
+            out.writeInt(epochDays[row]);
+        }
+    }
+
+    @Override
+    void readValues(DataInput in) throws IOException {
+        for (int row = 0; row < size; row++) {
+            epochDays[row] = in.readInt();
+        }
+    }
+}
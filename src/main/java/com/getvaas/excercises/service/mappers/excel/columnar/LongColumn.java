@@ -0,0 +1,71 @@
+package com.getvaas.excercises.service.mappers.excel.columnar;
+
+import com.getvaas.excercises.service.mappers.excel.model.DataType;
+import com.getvaas.excercises.service.mappers.excel.model.RowBuffer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Column of a {@link DataType#LONG} field
+ */
+public final class LongColumn extends NumericColumn {
+    private long[] values = new long[0];
+
+    LongColumn(String name) {
+        super(name, DataType.LONG);
+    }
+
+    /**
+     * @param row index of the row
+     * @return value of the row, {@code 0} if it has no value
+     */
+    public long get(int row) {
+        return values[row];
+    }
+
+    @Override
+    public double getAsDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public Object getValue(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (capacity > values.length)
+            values = Arrays.copyOf(values, grow(values.length, capacity));
+    }
+
+    @Override
+    boolean set(int index, RowBuffer row, int column) {
+        if (row.getKind(column) == RowBuffer.Kind.OBJECT)
+            return false;
+        values[index] = row.getLong(column);
+        return true;
+    }
+
+    @Override
+    void copyValues(Column other, int offset) {
+        System.arraycopy(((LongColumn) other).values, 0, values, offset, other.size);
+    }
+
+    @Override
+    void writeValues(DataOutput out) throws IOException {
+        for (int row = 0; row < size; row++) {
+            out.writeLong(values[row]);
+        }
+    }
+
+    @Override
+    void readValues(DataInput in) throws IOException {
+        for (int row = 0; row < size; row++) {
+            values[row] = in.readLong();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.getvaas.excercises.service.mappers.excel.columnar;
+
+import com.getvaas.excercises.service.mappers.excel.model.DataType;
+
+/**
+ * Column of numbers, whatever their primitive type they can be read as {@code double} to aggregate them
+ */
+public abstract class NumericColumn extends Column {
+
+    NumericColumn(String name, DataType type) {
+        super(name, type);
+    }
+
+    /**
+     * @param row index of the row
+     * @return value of the row, {@code 0} if it has no value
+     */
+    public abstract double getAsDouble(int row);
+
+    /**
+     * @return sum of the values of the column, rows without value are ignored
+     */
+    public double sum() {
+        double sum = 0;
+        for (int row = 0; row < size; row++) {
+            sum += getAsDouble(row);
+        }
+        return sum;
+    }
+
+    /**
+     * Sums the values of the rows grouped by the code of a string column, e.g. the balance by arrears bucket
+     *
+     * @param groups column whose dictionary codes are the groups, rows without group are ignored
+     * @return sum of each group, indexed by dictionary code
+     */
+    public double[] sumBy(StringColumn groups) {
+        if (groups.size() != size)
+            throw new IllegalArgumentException("The columns have a different number of rows");
+        double[] sums = new double[groups.getDictionarySize()];
+        for (int row = 0; row < size; row++) {
+            if (!groups.isNull(row))
+                sums[groups.getCode(row)] += getAsDouble(row);
+        }
+        return sums;
+    }
+}
@@ -0,0 +1,127 @@
+package com.getvaas.excercises.service.mappers.excel.columnar;
+
+import com.getvaas.excercises.service.mappers.excel.model.DataType;
+import com.getvaas.excercises.service.mappers.excel.model.RowBuffer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column of a {@link DataType#STRING} field, dictionary encoded: each distinct value is stored once
+ * and the rows keep the code of their value, so grouping by the column only compares ints
+ */
+public final class StringColumn extends Column {
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codesByValue = new HashMap<>();
+    private int[] codes = new int[0];
+
+    StringColumn(String name) {
+        super(name, DataType.STRING);
+    }
+
+    /**
+     * @param row index of the row
+     * @return value of the row, {@code null} if it has no value
+     */
+    public String get(int row) {
+        return isNull(row) ? null : dictionary.get(codes[row]);
+    }
+
+    /**
+     * @param row index of the row
+     * @return position of the value of the row in the {@link #getDictionary() dictionary},
+     * only meaningful if the row {@link #isNull(int) has a value}
+     */
+    public int getCode(int row) {
+        return codes[row];
+    }
+
+    /**
+     * @return the distinct values of the column, in the order they were found
+     */
+    public List<String> getDictionary() {
+        return Collections.unmodifiableList(dictionary);
+    }
+
+    public int getDictionarySize() {
+        return dictionary.size();
+    }
+
+    @Override
+    public Object getValue(int row) {
+        return get(row);
+    }
+
+    private int encode(String value) {
+        Integer code = codesByValue.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            codesByValue.put(value, code);
+        }
+        return code;
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (capacity > codes.length)
+            codes = Arrays.copyOf(codes, grow(codes.length, capacity));
+    }
+
+    @Override
+    boolean set(int index, RowBuffer row, int column) {
+        Object value = row.getValue(column);
+        if (value == null)
+            return false;
+        codes[index] = encode(value.toString());
+        return true;
+    }
+
+    @Override
+    void copyValues(Column other, int offset) {
+        StringColumn strings = (StringColumn) other;
+        int[] recoded = new int[strings.dictionary.size()];
+        for (int code = 0; code < recoded.length; code++) {
+            recoded[code] = encode(strings.dictionary.get(code));
+        }
+        for (int row = 0; row < other.size; row++) {
+            codes[offset + row] = other.isNull(row) ? 0 : recoded[strings.codes[row]];
+        }
+    }
+
+    @Override
+    void writeValues(DataOutput out) throws IOException {
+        out.writeInt(dictionary.size());
+        for (String value : dictionary) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        for (int row = 0; row < size; row++) {
+            out.writeInt(codes[row]);
+        }
+    }
+
+    @Override
+    void readValues(DataInput in) throws IOException {
+        int dictionarySize = in.readInt();
+        for (int code = 0; code < dictionarySize; code++) {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            encode(new String(bytes, StandardCharsets.UTF_8));
+        }
+        for (int row = 0; row < size; row++) {
+            codes[row] = in.readInt();
+            if (codes[row] < 0 || codes[row] >= dictionarySize)
+                throw new IOException("Invalid dictionary code in column " + getName());
+        }
+    }
+}
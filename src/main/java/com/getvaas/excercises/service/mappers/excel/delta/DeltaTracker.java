@@ -0,0 +1,109 @@
+package com.getvaas.excercises.service.mappers.excel.delta;
+
+import com.getvaas.excercises.service.mappers.excel.model.RowBuffer;
+
+import java.util.stream.LongStream;
+
+/**
+ * Compares the rows of an import with the fingerprints of the previous import of the same sheet,
+ * and builds the fingerprints of the current one. Rows are identified by the value of a key field
+ */
+public final class DeltaTracker {
+    /**
+     * Change of a row since the previous import
+     */
+    public enum Change {
+        INSERTED, UPDATED, UNCHANGED
+    }
+
+    private final RowFingerprints previous;
+    private final RowFingerprints current;
+    private final String keyField;
+    private int unchangedCount;
+    /**
+     * Key of the last tracked row, {@code null} if it didn't have a key
+     */
+    private Long lastKey;
+    private Change lastChange;
+
+    /**
+     * @param previous fingerprints of the previous import, {@code null} if it is the first import
+     * @param keyField name of the field that identifies the rows, it must be numeric
+     */
+    public DeltaTracker(RowFingerprints previous, String keyField) {
+        this.previous = previous != null ? previous : new RowFingerprints(16);
+        this.current = new RowFingerprints(Math.max(1024, this.previous.size()));
+        this.keyField = keyField;
+    }
+
+    /**
+     * Records the fingerprint of a row and compares it with the previous import.
+     * Rows without key can't be compared, they are always {@link Change#INSERTED}
+     *
+     * @param row values of the row
+     * @return the change of the row
+     */
+    public Change track(RowBuffer row) {
+        Object key = row.getValue(keyField);
+        if (!(key instanceof Number)) {
+            lastKey = null;
+            return lastChange = Change.INSERTED;
+        }
+        long id = ((Number) key).longValue();
+        long fingerprint = RowFingerprints.fingerprint(row);
+        current.put(id, fingerprint);
+        lastKey = id;
+        if (!previous.containsKey(id))
+            lastChange = Change.INSERTED;
+        else if (previous.getOrDefault(id, 0) != fingerprint)
+            lastChange = Change.UPDATED;
+        else {
+            unchangedCount++;
+            lastChange = Change.UNCHANGED;
+        }
+        return lastChange;
+    }
+
+    /**
+     * Undoes the tracking of the last row because it didn't pass the validation: the fingerprint of the previous
+     * import is kept, so the row isn't reported as deleted and it is compared again in the next import
+     */
+    public void rejectLast() {
+        if (lastKey == null)
+            return;
+        if (previous.containsKey(lastKey))
+            current.put(lastKey, previous.getOrDefault(lastKey, 0));
+        else
+            current.remove(lastKey);
+    }
+
+    /**
+     * @return change of the last tracked row
+     */
+    public Change getLastChange() {
+        return lastChange;
+    }
+
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * @return keys of the rows of the previous import that are not in this one, to be called once all the rows are tracked
+     */
+    public long[] getDeletedKeys() {
+        LongStream.Builder deleted = LongStream.builder();
+        previous.forEachKey(key -> {
+            if (!current.containsKey(key))
+                deleted.add(key);
+        });
+        return deleted.build().toArray();
+    }
+
+    /**
+     * @return fingerprints of this import, to compare the next import with
+     */
+    public RowFingerprints getFingerprints() {
+        return current;
+    }
+}
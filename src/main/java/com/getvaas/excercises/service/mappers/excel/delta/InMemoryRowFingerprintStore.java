@@ -0,0 +1,21 @@
+package com.getvaas.excercises.service.mappers.excel.delta;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the fingerprints in the heap, they are lost when the application stops and the next import is a full one
+ */
+public class InMemoryRowFingerprintStore implements RowFingerprintStore {
+    private final Map<String, RowFingerprints> fingerprints = new ConcurrentHashMap<>();
+
+    @Override
+    public RowFingerprints get(String dataset) {
+        return fingerprints.get(dataset);
+    }
+
+    @Override
+    public void put(String dataset, RowFingerprints fingerprints) {
+        this.fingerprints.put(dataset, fingerprints);
+    }
+}
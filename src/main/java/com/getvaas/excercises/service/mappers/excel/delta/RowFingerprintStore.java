@@ -0,0 +1,20 @@
+package com.getvaas.excercises.service.mappers.excel.delta;
+
+/**
+ * Keeps the fingerprints of the last import of each dataset, e.g. the "Raw Data" sheet of a trustee
+ */
+public interface RowFingerprintStore {
+    /**
+     * @param dataset name of the dataset
+     * @return fingerprints of the last import, or {@code null} if it was never imported
+     */
+    RowFingerprints get(String dataset);
+
+    /**
+     * Replaces the fingerprints of a dataset, once the import was persisted
+     *
+     * @param dataset      name of the dataset
+     * @param fingerprints fingerprints of the import
+     */
+    void put(String dataset, RowFingerprints fingerprints);
+}
@@ -0,0 +1,169 @@
+package com.getvaas.excercises.service.mappers.excel.delta;
+
+import com.getvaas.excercises.service.mappers.excel.model.RowBuffer;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Fingerprints of the rows of an import, keyed by the key of each row (e.g. the contract id).
+ * Keys and fingerprints are kept in primitive arrays with open addressing, so the fingerprints
+ * of a sheet with millions of rows take a few tens of MB and no boxed values
+ */
+public final class RowFingerprints {
+    private static final long SEED = 0x27D4EB2F165667C5L;
+
+    private long[] keys;
+    private long[] fingerprints;
+    private boolean[] used;
+    private int size;
+
+    public RowFingerprints() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedSize number of rows expected
+     */
+    public RowFingerprints(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        fingerprints = new long[capacity];
+        used = new boolean[capacity];
+    }
+
+    /**
+     * Computes the fingerprint of the values of a row, rows with the same values have the same fingerprint
+     *
+     * @param row values of the row
+     * @return 64 bits hash of the values
+     */
+    public static long fingerprint(RowBuffer row) {
+        long hash = SEED;
+        for (int column = 0; column < row.getColumnCount(); column++) {
+            if (row.isNull(column))
+                continue;
+            hash = mix(hash, column);
+            switch (row.getKind(column)) {
+                case LONG:
+                case INT:
+                    hash = mix(hash, row.getLong(column));
+                    break;
+                case DOUBLE:
+                    hash = mix(hash, Double.doubleToLongBits(row.getDouble(column)));
+                    break;
+                default:
+                    Object value = row.getValue(column);
+                    if (value instanceof LocalDate) {
+                        hash = mix(hash, ((LocalDate) value).toEpochDay());
+                    } else {
+                        CharSequence text = value instanceof CharSequence ? (CharSequence) value : value.toString();
+                        for (int i = 0; i < text.length(); i++) {
+                            hash = mix(hash, text.charAt(i));
+                        }
+                        hash = mix(hash, text.length());
+                    }
+            }
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static long mix(long hash, long value) {
+        return Long.rotateLeft(hash ^ (value * 0x9E3779B97F4A7C15L), 31) * 0xBF58476D1CE4E5B9L;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        int mask = keys.length - 1;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Sets the fingerprint of a row, replacing the previous one if the key was already present
+     */
+    public void put(long key, long fingerprint) {
+        int slot = slot(key);
+        if (!used[slot]) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = slot(key);
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+        }
+        fingerprints[slot] = fingerprint;
+    }
+
+    /**
+     * Removes the fingerprint of a row, if present
+     */
+    public void remove(long key) {
+        int slot = slot(key);
+        if (!used[slot])
+            return;
+        used[slot] = false;
+        size--;
+        // reinserts the following entries of the cluster so the lookups don't stop at the removed slot
+        int mask = keys.length - 1;
+        for (int next = (slot + 1) & mask; used[next]; next = (next + 1) & mask) {
+            used[next] = false;
+            size--;
+            put(keys[next], fingerprints[next]);
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return used[slot(key)];
+    }
+
+    /**
+     * @param key          key of a row
+     * @param defaultValue value returned if the key is not present
+     * @return the fingerprint of the row, or the default value
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        int slot = slot(key);
+        return used[slot] ? fingerprints[slot] : defaultValue;
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calls the action with the key of each row, in no particular order
+     */
+    public void forEachKey(LongConsumer action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot])
+                action.accept(keys[slot]);
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldFingerprints = fingerprints;
+        boolean[] oldUsed = used;
+        keys = new long[oldKeys.length * 2];
+        fingerprints = new long[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot])
+                put(oldKeys[slot], oldFingerprints[slot]);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.getvaas.excercises.service.mappers.excel.exceptions;
+
+/**
+ * Wraps an {@link ExcelMapperException} where checked exceptions can't be thrown,
+ * e.g. while a stream of mapped rows is consumed
+ */
+public class UncheckedExcelMapperException extends RuntimeException {
+
+    /**
+     * Serial version ID
+     */
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedExcelMapperException(ExcelMapperException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized ExcelMapperException getCause() {
+        return (ExcelMapperException) super.getCause();
+    }
+}
@@ -0,0 +1,87 @@
+package com.getvaas.excercises.service.mappers.excel.model;
+
+import com.getvaas.excercises.service.mappers.excel.delta.RowFingerprints;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wraps the response of the excel mapper in delta mode: only the rows that changed since the previous import
+ * of the sheet are mapped, the unchanged ones are just counted
+ *
+ * @param <T>
+ */
+public class DeltaResponse<T> {
+    /**
+     * Rows whose key wasn't in the previous import
+     */
+    private List<T> inserted = new ArrayList<>();
+    /**
+     * Rows whose values changed since the previous import
+     */
+    private List<T> updated = new ArrayList<>();
+    /**
+     * Keys of the rows of the previous import that are not in the sheet
+     */
+    private long[] deletedKeys = new long[0];
+    /**
+     * Number of rows that didn't change, they are not mapped
+     */
+    private int unchangedCount;
+    /**
+     * Indicates the result of the validation of the changed rows
+     */
+    private CorrectnessLevel level;
+    /**
+     * Fingerprints of the sheet, to be stored once the changes are persisted
+     */
+    private RowFingerprints fingerprints;
+
+    public List<T> getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(List<T> inserted) {
+        this.inserted = inserted;
+    }
+
+    public List<T> getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(List<T> updated) {
+        this.updated = updated;
+    }
+
+    public long[] getDeletedKeys() {
+        return deletedKeys;
+    }
+
+    public void setDeletedKeys(long[] deletedKeys) {
+        this.deletedKeys = deletedKeys;
+    }
+
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    public void setUnchangedCount(int unchangedCount) {
+        this.unchangedCount = unchangedCount;
+    }
+
+    public CorrectnessLevel getLevel() {
+        return level;
+    }
+
+    public void setLevel(CorrectnessLevel level) {
+        this.level = level;
+    }
+
+    public RowFingerprints getFingerprints() {
+        return fingerprints;
+    }
+
+    public void setFingerprints(RowFingerprints fingerprints) {
+        this.fingerprints = fingerprints;
+    }
+}
@@ -1,13 +1,26 @@
 package com.getvaas.excercises.service.mappers.excel.model;
 
+import com.getvaas.excercises.service.mappers.excel.columnar.ColumnarSheet;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
  * Wraps the excel mapper's response,
  * contains a list of the values it was able to map, and if there was an error,
- * this contain a file with  original excel file with the errors highlighted
+ * this contain a file with  original excel file with the errors highlighted.
+ * <p>
+ * The file with observations is generated from the mapper's loaded package when it is written, so while the
+ * response has an {@link ObservationWriter} it keeps the mapper and the whole package in memory. The file is the
+ * package as it is when written: it also highlights the rows of other sheets mapped later with the same mapper,
+ * e.g. the other responses of {@link com.getvaas.excercises.service.mappers.excel.ExcelMapper#mapSheets mapSheets}. Write it, or drop the response, as soon as possible
+ * </p>
  *
  * @param <T>
  */
@@ -24,10 +37,23 @@ public class MapperResponse<T> {
      * Original Excel document with rows where there are errors or warnings highlighted
      */
     private OutputStream fileWithObservations;
+    /**
+     * Generates the original Excel document with the observations when it is requested,
+     * it references the mapper that created the response and its package
+     */
+    private ObservationWriter observationWriter;
+    /**
+     * Observations found, when the mapper doesn't modify the original document
+     */
+    private ObservationReport observationReport;
     /**
      * Number of items loaded successfully
      */
     private Integer successCount;
+    /**
+     * Data that was mapped correctly stored by column, only if the mapper was asked for it
+     */
+    private ColumnarSheet columnar;
 
     public List<T> getData() {
         return data;
@@ -37,7 +63,21 @@ public class MapperResponse<T> {
         this.data = data;
     }
 
+    /**
+     * @return the document with the observations, generated in memory the first time it is requested
+     * @deprecated keeps a full copy of the document in memory, use {@link #writeObservations(OutputStream)}
+     */
+    @Deprecated
     public OutputStream getFileWithObservations() {
+        if (fileWithObservations == null && observationWriter != null) {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            try {
+                observationWriter.writeTo(byteArrayOutputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            fileWithObservations = byteArrayOutputStream;
+        }
         return fileWithObservations;
     }
 
@@ -45,6 +85,62 @@ public class MapperResponse<T> {
         this.fileWithObservations = fileWithObservations;
     }
 
+    public ObservationWriter getObservationWriter() {
+        return observationWriter;
+    }
+
+    public void setObservationWriter(ObservationWriter observationWriter) {
+        this.observationWriter = observationWriter;
+    }
+
+    /**
+     * @return the observations found, only in {@link ObservationMode#REPORT} mode
+     */
+    public ObservationReport getObservationReport() {
+        return observationReport;
+    }
+
+    public void setObservationReport(ObservationReport observationReport) {
+        this.observationReport = observationReport;
+    }
+
+    /**
+     * @return {@code true} if there is a document with observations to write
+     */
+    public boolean hasObservations() {
+        return observationWriter != null || fileWithObservations instanceof ByteArrayOutputStream;
+    }
+
+    /**
+     * Writes the document with the observations, it is generated directly in the stream. It contains
+     * the observations of every sheet mapped with the mapper up to now, not only the ones of this response
+     *
+     * @param out stream where the document is written, it is not closed
+     * @throws IOException           if the document can't be written
+     * @throws IllegalStateException if there are no observations
+     */
+    public void writeObservations(OutputStream out) throws IOException {
+        if (observationWriter != null)
+            observationWriter.writeTo(out);
+        else if (fileWithObservations instanceof ByteArrayOutputStream)
+            ((ByteArrayOutputStream) fileWithObservations).writeTo(out);
+        else
+            throw new IllegalStateException("There is no file with observations");
+    }
+
+    /**
+     * Writes the document with the observations to a file, replacing it if it exists
+     *
+     * @param file path of the file
+     * @throws IOException           if the file can't be written
+     * @throws IllegalStateException if there are no observations
+     */
+    public void writeObservations(Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            writeObservations(out);
+        }
+    }
+
     public CorrectnessLevel getLevel() {
         return level;
     }
@@ -60,4 +156,12 @@ public class MapperResponse<T> {
     public void setSuccessCount(Integer successCount) {
         this.successCount = successCount;
     }
+
+    public ColumnarSheet getColumnar() {
+        return columnar;
+    }
+
+    public void setColumnar(ColumnarSheet columnar) {
+        this.columnar = columnar;
+    }
 }
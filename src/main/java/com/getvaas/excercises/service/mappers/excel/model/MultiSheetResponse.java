@@ -0,0 +1,72 @@
+package com.getvaas.excercises.service.mappers.excel.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wraps the responses of the sheets of a workbook mapped in a single call,
+ * with the highest correctness level among them
+ */
+public class MultiSheetResponse {
+    /**
+     * Response of each sheet, keyed by the spec of the sheet, in the order they were mapped
+     */
+    private final Map<SheetSpec<?>, MapperResponse<?>> responses = new LinkedHashMap<>();
+    /**
+     * Highest correctness level of the sheets
+     */
+    private CorrectnessLevel level = CorrectnessLevel.OK;
+    /**
+     * Generates the workbook with the observations of all the sheets, if any sheet has observations
+     */
+    private ObservationWriter observationWriter;
+
+    /**
+     * Adds the response of a sheet
+     */
+    public <R> void put(SheetSpec<R> spec, MapperResponse<R> response) {
+        responses.put(spec, response);
+        level = CorrectnessLevel.getHigherPriority(level, response.getLevel());
+        if (response.getObservationWriter() != null)
+            observationWriter = response.getObservationWriter();
+    }
+
+    /**
+     * @param spec spec of a mapped sheet
+     * @return response of the sheet, or {@code null} if the spec wasn't mapped
+     */
+    @SuppressWarnings("unchecked")
+    public <R> MapperResponse<R> get(SheetSpec<R> spec) {
+        return (MapperResponse<R>) responses.get(spec);
+    }
+
+    public Map<SheetSpec<?>, MapperResponse<?>> getResponses() {
+        return Collections.unmodifiableMap(responses);
+    }
+
+    /**
+     * @return the highest correctness level of the sheets
+     */
+    public CorrectnessLevel getLevel() {
+        return level;
+    }
+
+    public ObservationWriter getObservationWriter() {
+        return observationWriter;
+    }
+
+    /**
+     * Writes the workbook with the observations of all the sheets
+     *
+     * @param out stream where the document is written, it is not closed
+     * @throws IllegalStateException if no sheet has observations in the workbook
+     */
+    public void writeObservations(OutputStream out) throws IOException {
+        if (observationWriter == null)
+            throw new IllegalStateException("There is no file with observations");
+        observationWriter.writeTo(out);
+    }
+}
@@ -0,0 +1,15 @@
+package com.getvaas.excercises.service.mappers.excel.model;
+
+/**
+ * How the excel mapper reports the rows that don't pass the validation and the cells that can't be converted
+ */
+public enum ObservationMode {
+    /**
+     * The rows and cells are highlighted in the original document, which is written again with the observations
+     */
+    ANNOTATE_WORKBOOK,
+    /**
+     * The observations are recorded in an {@link ObservationReport}, the original document is not modified
+     */
+    REPORT
+}
@@ -0,0 +1,231 @@
+package com.getvaas.excercises.service.mappers.excel.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Observations found while mapping a sheet, as (row, column, level, message) tuples.
+ * They are kept in parallel arrays and each distinct message is stored once, so a sheet with many
+ * rejected rows takes little memory. The report can be written as CSV or JSON
+ */
+public class ObservationReport {
+    /**
+     * Column of the observations about a whole row
+     */
+    public static final int NO_COLUMN = -1;
+    private static final CorrectnessLevel[] LEVELS = CorrectnessLevel.values();
+
+    private int[] rows = new int[16];
+    private int[] columns = new int[16];
+    private byte[] levels = new byte[16];
+    private int[] messageCodes = new int[16];
+    private final List<String> messages = new ArrayList<>();
+    private final Map<String, Integer> messageCodesByText = new HashMap<>();
+    private int size;
+
+    /**
+     * Records an observation
+     *
+     * @param row     number of the row in the sheet (1-based, as shown by excel)
+     * @param column  index of the column (0-based), or {@link #NO_COLUMN} if it is about the whole row
+     * @param level   level of the observation
+     * @param message message of the observation
+     */
+    public void add(int row, int column, CorrectnessLevel level, String message) {
+        if (size == rows.length) {
+            int capacity = size * 2;
+            rows = Arrays.copyOf(rows, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            messageCodes = Arrays.copyOf(messageCodes, capacity);
+        }
+        rows[size] = row;
+        columns[size] = column;
+        levels[size] = (byte) level.ordinal();
+        messageCodes[size] = encode(message != null ? message : "");
+        size++;
+    }
+
+    /**
+     * Records the observations of another report after the ones of this report
+     */
+    public void addAll(ObservationReport other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.rows[i], other.columns[i], other.getLevel(i), other.getMessage(i));
+        }
+    }
+
+    private int encode(String message) {
+        Integer code = messageCodesByText.get(message);
+        if (code == null) {
+            code = messages.size();
+            messages.add(message);
+            messageCodesByText.put(message, code);
+        }
+        return code;
+    }
+
+    /**
+     * @return number of observations
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index index of the observation
+     * @return number of the row in the sheet (1-based)
+     */
+    public int getRow(int index) {
+        return rows[index];
+    }
+
+    /**
+     * @param index index of the observation
+     * @return index of the column (0-based), or {@link #NO_COLUMN}
+     */
+    public int getColumn(int index) {
+        return columns[index];
+    }
+
+    public CorrectnessLevel getLevel(int index) {
+        return LEVELS[levels[index]];
+    }
+
+    public String getMessage(int index) {
+        return messages.get(messageCodes[index]);
+    }
+
+    /**
+     * @return the highest level of the observations, {@link CorrectnessLevel#OK} if there are none
+     */
+    public CorrectnessLevel getLevel() {
+        CorrectnessLevel level = CorrectnessLevel.OK;
+        for (int i = 0; i < size; i++) {
+            level = CorrectnessLevel.getHigherPriority(level, getLevel(i));
+        }
+        return level;
+    }
+
+    /**
+     * Writes the report as CSV, with a header and one line per observation: row, column (as letters), level and message
+     *
+     * @param out stream where the report is written in UTF-8, it is not closed
+     */
+    public void writeCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("row,column,level,message\r\n");
+        for (int i = 0; i < size; i++) {
+            writer.write(Integer.toString(rows[i]));
+            writer.write(',');
+            writer.write(columnName(columns[i]));
+            writer.write(',');
+            writer.write(getLevel(i).name());
+            writer.write(',');
+            writeCsvValue(writer, getMessage(i));
+            writer.write("\r\n");
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes the report as a JSON array of objects with the fields row, column (as letters, {@code null}
+     * for the whole row), level and message
+     *
+     * @param out stream where the report is written in UTF-8, it is not closed
+     */
+    public void writeJson(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                writer.write(',');
+            writer.write("{\"row\":");
+            writer.write(Integer.toString(rows[i]));
+            writer.write(",\"column\":");
+            if (columns[i] == NO_COLUMN)
+                writer.write("null");
+            else
+                writeJsonString(writer, columnName(columns[i]));
+            writer.write(",\"level\":\"");
+            writer.write(getLevel(i).name());
+            writer.write("\",\"message\":");
+            writeJsonString(writer, getMessage(i));
+            writer.write('}');
+        }
+        writer.write(']');
+        writer.flush();
+    }
+
+    /**
+     * @param column index of the column (0-based), or {@link #NO_COLUMN}
+     * @return the letters of the column as shown by excel, empty for {@link #NO_COLUMN}
+     */
+    static String columnName(int column) {
+        if (column < 0)
+            return "";
+        StringBuilder name = new StringBuilder();
+        for (int c = column + 1; c > 0; c = (c - 1) / 26) {
+            name.append((char) ('A' + (c - 1) % 26));
+        }
+        return name.reverse().toString();
+    }
+
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        writer.write(String.format("\\u%04x", (int) c));
+                    else
+                        writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
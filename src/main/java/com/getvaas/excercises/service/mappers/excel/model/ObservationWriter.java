@@ -0,0 +1,19 @@
+package com.getvaas.excercises.service.mappers.excel.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the original document with the observations of the rows that didn't pass the validation.
+ * The document is only generated when it is written
+ */
+@FunctionalInterface
+public interface ObservationWriter {
+    /**
+     * Writes the document with the observations, the stream is not closed
+     *
+     * @param out stream where the document is written
+     * @throws IOException if the document can't be written
+     */
+    void writeTo(OutputStream out) throws IOException;
+}
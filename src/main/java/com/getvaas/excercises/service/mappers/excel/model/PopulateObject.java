@@ -4,6 +4,17 @@ import java.util.Map;
 
 public interface PopulateObject<T> {
      T populate(Map<String,Object> data);
+
+    /**
+     * Builds the object from the typed values of a row, by default the values are copied to a map.
+     * The buffer is reused for the next row, so it must not be kept
+     *
+     * @param row values of the mapped cells of the row
+     * @return the object built
+     */
+     default T populate(RowBuffer row) {
+        return populate(row.toMap());
+    }
     /**
      * It allows to map a value of a map in a safe way
      * 
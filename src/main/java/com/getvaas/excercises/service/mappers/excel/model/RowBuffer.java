@@ -0,0 +1,217 @@
+package com.getvaas.excercises.service.mappers.excel.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed values of the mapped cells of a row, indexed by column. Numbers are kept in primitive slots so
+ * they are not boxed, and two bitmaps record which columns were read and which of them hold a value.
+ * A buffer is reused for every row mapped by the same worker, it must not be kept once the row is populated
+ */
+public class RowBuffer {
+    /**
+     * Type of the value stored in a column
+     */
+    public enum Kind {
+        LONG, INT, DOUBLE, OBJECT
+    }
+
+    private final List<String> fieldNames;
+    private final Map<String, Integer> columnsByName;
+    private final long[] longs;
+    private final int[] ints;
+    private final double[] doubles;
+    private final Object[] objects;
+    private final Kind[] kinds;
+    /**
+     * Columns read in the current row, including the ones whose value is {@code null}
+     */
+    private final long[] assigned;
+    /**
+     * Columns of the current row that hold a value
+     */
+    private final long[] nonNull;
+
+    /**
+     * @param fieldNames name of the field mapped in each column, {@code null} for the columns not mapped.
+     *                   Buffers of the same sheet should share the same list
+     */
+    public RowBuffer(List<String> fieldNames) {
+        int columns = fieldNames.size();
+        this.fieldNames = fieldNames;
+        this.columnsByName = new HashMap<>();
+        for (int column = 0; column < columns; column++) {
+            if (fieldNames.get(column) != null)
+                columnsByName.put(fieldNames.get(column), column);
+        }
+        longs = new long[columns];
+        ints = new int[columns];
+        doubles = new double[columns];
+        objects = new Object[columns];
+        kinds = new Kind[columns];
+        assigned = new long[(columns + 63) >>> 6];
+        nonNull = new long[assigned.length];
+    }
+
+    /**
+     * Empties the buffer before reading a new row
+     */
+    public void clear() {
+        Arrays.fill(assigned, 0L);
+        Arrays.fill(nonNull, 0L);
+        Arrays.fill(objects, null);
+    }
+
+    public void setLong(int column, long value) {
+        longs[column] = value;
+        mark(column, Kind.LONG, true);
+    }
+
+    public void setInt(int column, int value) {
+        ints[column] = value;
+        mark(column, Kind.INT, true);
+    }
+
+    public void setDouble(int column, double value) {
+        doubles[column] = value;
+        mark(column, Kind.DOUBLE, true);
+    }
+
+    /**
+     * @param value the value, {@code null} is the same as {@link #setNull(int)}
+     */
+    public void setObject(int column, Object value) {
+        objects[column] = value;
+        mark(column, Kind.OBJECT, value != null);
+    }
+
+    /**
+     * Records that the column was read but has no value, e.g. because the cell couldn't be converted
+     */
+    public void setNull(int column) {
+        objects[column] = null;
+        mark(column, Kind.OBJECT, false);
+    }
+
+    private void mark(int column, Kind kind, boolean hasValue) {
+        kinds[column] = kind;
+        long bit = 1L << column;
+        assigned[column >>> 6] |= bit;
+        if (hasValue)
+            nonNull[column >>> 6] |= bit;
+        else
+            nonNull[column >>> 6] &= ~bit;
+    }
+
+    /**
+     * @return {@code true} if the column was read in the current row, even if its value is {@code null}
+     */
+    public boolean isAssigned(int column) {
+        return (assigned[column >>> 6] & (1L << column)) != 0;
+    }
+
+    /**
+     * @return {@code true} if the column has no value in the current row
+     */
+    public boolean isNull(int column) {
+        return (nonNull[column >>> 6] & (1L << column)) == 0;
+    }
+
+    /**
+     * @return {@code true} if no column of the current row has a value
+     */
+    public boolean isEmpty() {
+        for (long bits : nonNull) {
+            if (bits != 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return type of the value of the column, only meaningful if the column is not {@link #isNull(int) null}
+     */
+    public Kind getKind(int column) {
+        return kinds[column];
+    }
+
+    /**
+     * @return value of a {@link Kind#LONG} or {@link Kind#INT} column
+     */
+    public long getLong(int column) {
+        return kinds[column] == Kind.INT ? ints[column] : longs[column];
+    }
+
+    /**
+     * @return value of a {@link Kind#INT} column
+     */
+    public int getInt(int column) {
+        return ints[column];
+    }
+
+    /**
+     * @return value of a numeric column
+     */
+    public double getDouble(int column) {
+        switch (kinds[column]) {
+            case LONG:
+                return longs[column];
+            case INT:
+                return ints[column];
+            default:
+                return doubles[column];
+        }
+    }
+
+    /**
+     * @return value of the column, boxed if it is a number, {@code null} if it has no value
+     */
+    public Object getValue(int column) {
+        if (isNull(column))
+            return null;
+        switch (kinds[column]) {
+            case LONG:
+                return longs[column];
+            case INT:
+                return ints[column];
+            case DOUBLE:
+                return doubles[column];
+            default:
+                return objects[column];
+        }
+    }
+
+    /**
+     * @param fieldName name of a field
+     * @return value of the field, {@code null} if it has no value or it is not mapped
+     */
+    public Object getValue(String fieldName) {
+        Integer column = columnsByName.get(fieldName);
+        return column != null ? getValue(column) : null;
+    }
+
+    /**
+     * @return name of the field mapped in each column, {@code null} for the columns not mapped
+     */
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    public int getColumnCount() {
+        return fieldNames.size();
+    }
+
+    /**
+     * @return the columns read in the current row keyed by field name, the way the rows were mapped before
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> data = new HashMap<>(columnsByName.size() * 2);
+        for (int column = 0; column < kinds.length; column++) {
+            if (isAssigned(column))
+                data.put(fieldNames.get(column), getValue(column));
+        }
+        return data;
+    }
+}
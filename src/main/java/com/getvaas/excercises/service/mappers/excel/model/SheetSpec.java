@@ -0,0 +1,55 @@
+package com.getvaas.excercises.service.mappers.excel.model;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Describes a sheet to map together with other sheets of the same workbook
+ *
+ * @param <R> type of the objects mapped from the rows of the sheet
+ */
+public class SheetSpec<R> {
+    /**
+     * Name of the sheet, the sheet is found by searching if its name contains this value
+     */
+    private final String sheetName;
+    /**
+     * Fields to map in the sheet
+     */
+    private final List<Field> fields;
+    /**
+     * Checks if a mapped row contains correct data, can be {@code null}
+     */
+    private final Validator<R> validator;
+    /**
+     * Builds the objects from the mapped rows
+     */
+    private final PopulateObject<R> populateObject;
+
+    public SheetSpec(String sheetName, List<Field> fields, Validator<R> validator, PopulateObject<R> populateObject) {
+        this.sheetName = Objects.requireNonNull(sheetName);
+        this.fields = Objects.requireNonNull(fields);
+        this.validator = validator;
+        this.populateObject = Objects.requireNonNull(populateObject);
+    }
+
+    public static <R> SheetSpec<R> of(String sheetName, List<Field> fields, Validator<R> validator, PopulateObject<R> populateObject) {
+        return new SheetSpec<>(sheetName, fields, validator, populateObject);
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    public Validator<R> getValidator() {
+        return validator;
+    }
+
+    public PopulateObject<R> getPopulateObject() {
+        return populateObject;
+    }
+}
@@ -0,0 +1,103 @@
+package com.getvaas.excercises.service.mappers.excel.search;
+
+import com.getvaas.excercises.service.mappers.excel.model.Field;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Index of the names a field can have in a header. The field name and its synonyms are normalized
+ * once (trimmed, without accents and in lower case) so a header cell is matched with a single hash lookup
+ */
+public final class FieldSynonymIndex {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("[\\p{InCombiningDiacriticalMarks}]");
+
+    private final List<Field> fields;
+    /**
+     * Normalized name to the fields that can be found with it, in the order they were given
+     */
+    private final Map<String, List<Field>> fieldsByToken;
+
+    private FieldSynonymIndex(List<Field> fields, Map<String, List<Field>> fieldsByToken) {
+        this.fields = fields;
+        this.fieldsByToken = fieldsByToken;
+    }
+
+    /**
+     * Builds the index of a list of fields
+     *
+     * @param fields fields to index, the list is kept to know if the index can be reused
+     * @return index of the fields
+     */
+    public static FieldSynonymIndex of(List<Field> fields) {
+        Map<String, List<Field>> fieldsByToken = new HashMap<>();
+        for (Field field : fields) {
+            add(fieldsByToken, field.getFieldName(), field);
+            if (field.getSynonyms() != null) {
+                for (String synonym : field.getSynonyms()) {
+                    add(fieldsByToken, synonym, field);
+                }
+            }
+        }
+        return new FieldSynonymIndex(fields, fieldsByToken);
+    }
+
+    private static void add(Map<String, List<Field>> fieldsByToken, String name, Field field) {
+        if (name == null)
+            return;
+        List<Field> matches = fieldsByToken.computeIfAbsent(normalize(name), token -> new ArrayList<>(1));
+        if (!matches.contains(field))
+            matches.add(field);
+    }
+
+    /**
+     * Normalizes a header text: trims it, removes the accents and converts it to lower case
+     *
+     * @param text text of a header cell or a field name
+     * @return normalized text
+     */
+    public static String normalize(String text) {
+        String s = text.trim();
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0x7F) {
+                s = COMBINING_MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+                break;
+            }
+        }
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Finds the fields that can be found with a header text
+     *
+     * @param text text of a header cell, can be null
+     * @return fields matching the text, empty if none
+     */
+    public List<Field> lookup(String text) {
+        if (text == null)
+            return Collections.emptyList();
+        return fieldsByToken.getOrDefault(normalize(text), Collections.emptyList());
+    }
+
+    /**
+     * @param field a field
+     * @return {@code true} if the field is in this index
+     */
+    public boolean contains(Field field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * @param fields list of fields
+     * @return {@code true} if this index was built from that same list
+     */
+    public boolean isIndexOf(List<Field> fields) {
+        return this.fields == fields;
+    }
+}
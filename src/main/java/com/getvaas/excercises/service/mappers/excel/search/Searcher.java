@@ -4,17 +4,32 @@ import com.getvaas.excercises.service.mappers.excel.model.Field;
 import org.xlsx4j.sml.Row;
 import org.xlsx4j.sml.SheetData;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public interface Searcher {
+    /**
+     * value of {@link #getMaxScanRows()} when the header can be in any row of the sheet
+     */
+    int ALL_ROWS = Integer.MAX_VALUE;
+
     /**
      * finds which is the row that contains the header of the data
      * @param sheet sheet where to search
      * @param values fields used to search the header
-     * @return index of header
+     * @return index of header, {@code null} if no row looks like the header
      */
     Integer searchHeaderRow(SheetData sheet, List<Field> values);
 
+    /**
+     * number of rows at the top of a sheet where the header can be, the rows after it are not searched
+     * @return maximum number of rows to scan, {@link #ALL_ROWS} to search the whole sheet
+     */
+    default int getMaxScanRows() {
+        return ALL_ROWS;
+    }
+
     /**
      *  finds which is the column of a particular field
      * @param row header where the field is to be searched
@@ -22,4 +37,20 @@ public interface Searcher {
      * @return index of the column found for the field
      */
     Integer searchColumn(Row row, Field synonyms);
+
+    /**
+     * finds the columns of a list of fields in the header
+     * @param row header where the fields are to be searched
+     * @param values fields to search
+     * @return index of the column of each field found, fields not found are not included
+     */
+    default Map<Field, Integer> searchColumns(Row row, List<Field> values) {
+        Map<Field, Integer> columns = new HashMap<>();
+        for (Field field : values) {
+            Integer column = searchColumn(row, field);
+            if (column != null)
+                columns.put(field, column);
+        }
+        return columns;
+    }
 }
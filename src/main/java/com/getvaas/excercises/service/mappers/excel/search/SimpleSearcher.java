@@ -9,93 +9,200 @@ import org.xlsx4j.sml.Row;
 import org.xlsx4j.sml.STCellType;
 import org.xlsx4j.sml.SheetData;
 
-import java.text.Normalizer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 public class SimpleSearcher implements Searcher {
-    CustomDataFormatter formatter = new CustomDataFormatter();
+    CustomDataFormatter formatter;
+    /**
+     * Number of rows at the top of the sheet where the header is searched, {@link Searcher#ALL_ROWS} for the whole sheet
+     */
+    private final int maxScanRows;
+    /**
+     * Minimum fraction of the fields a row must contain to be considered the header
+     */
+    private final double minMatchRatio;
+    /**
+     * Whether the rows of the scan window are ranked by the number of fields they contain,
+     * otherwise the first row that meets {@link #minMatchRatio} is the header
+     */
+    private final boolean rankRows;
+    /**
+     * Index of the last list of fields searched, the same list is used for every row of a sheet
+     */
+    private volatile FieldSynonymIndex index;
 
+    /**
+     * Searches the header in the whole sheet, the first row containing at least one of the fields is the header
+     */
     public SimpleSearcher() {
+        this(CustomDataFormatter.shared(), ALL_ROWS, 0, false);
     }
 
-    private static String stripAccents(String s) {
-        s = s.trim();
-        s = Normalizer.normalize(s, Normalizer.Form.NFD);
-        s = s.replaceAll("[\\p{InCombiningDiacriticalMarks}]", "");
-        return s;
+    /**
+     * Ranks the rows of the scan window, the one with the most fields is the header
+     *
+     * @param maxScanRows   number of rows at the top of the sheet where the header is searched
+     * @param minMatchRatio minimum fraction of the fields, between 0 and 1, a row must contain to be considered
+     *                      the header. A row always needs at least one field
+     */
+    public SimpleSearcher(int maxScanRows, double minMatchRatio) {
+        this(CustomDataFormatter.shared(), maxScanRows, minMatchRatio);
+    }
+
+    /**
+     * Ranks the rows of the scan window, the one with the most fields is the header
+     *
+     * @param formatter     formatter used to read the header cells
+     * @param maxScanRows   number of rows at the top of the sheet where the header is searched
+     * @param minMatchRatio minimum fraction of the fields, between 0 and 1, a row must contain to be considered
+     *                      the header. A row always needs at least one field
+     */
+    public SimpleSearcher(CustomDataFormatter formatter, int maxScanRows, double minMatchRatio) {
+        this(formatter, maxScanRows, minMatchRatio, true);
+    }
+
+    /**
+     * @param formatter     formatter used to read the header cells
+     * @param maxScanRows   number of rows at the top of the sheet where the header is searched
+     * @param minMatchRatio minimum fraction of the fields, between 0 and 1, a row must contain to be considered
+     *                      the header. A row always needs at least one field
+     * @param rankRows      {@code true} to return the row with the most fields, {@code false} to return the first
+     *                      row with enough fields
+     */
+    public SimpleSearcher(CustomDataFormatter formatter, int maxScanRows, double minMatchRatio, boolean rankRows) {
+        if (maxScanRows < 1)
+            throw new IllegalArgumentException("maxScanRows must be greater than 0");
+        if (minMatchRatio < 0 || minMatchRatio > 1)
+            throw new IllegalArgumentException("minMatchRatio must be between 0 and 1");
+        this.formatter = Objects.requireNonNull(formatter);
+        this.maxScanRows = maxScanRows;
+        this.minMatchRatio = minMatchRatio;
+        this.rankRows = rankRows;
+    }
+
+    private FieldSynonymIndex indexFor(List<Field> fields) {
+        FieldSynonymIndex current = index;
+        if (current == null || !current.isIndexOf(fields)) {
+            current = FieldSynonymIndex.of(fields);
+            index = current;
+        }
+        return current;
     }
 
+    @Override
+    public int getMaxScanRows() {
+        return maxScanRows;
+    }
+
+    /**
+     * Searches the header in the first rows of the sheet. If the rows are ranked they are scored by the number
+     * of fields they contain and the best one is returned, the scan stops as soon as a row contains every field.
+     * Otherwise the first row with enough fields is returned
+     */
     @Override
     public Integer searchHeaderRow(SheetData sheet, List<Field> fields) {
-        int ind = -1;
-        for (Row row : sheet.getRow()) {
-            ind++;
-            if (!rowContainString(row))
-                continue;
-            if (countFieldCoincidencesInRow(fields, row) > 0)
-                return ind;
+        FieldSynonymIndex fieldIndex = indexFor(fields);
+        int required = requiredMatches(fields);
+        List<Row> rows = sheet.getRow();
+        int limit = Math.min(rows.size(), maxScanRows);
+        Integer best = null;
+        int bestMatches = 0;
+        for (int ind = 0; ind < limit; ind++) {
+            int matches = countFieldMatches(rows.get(ind), fieldIndex);
+            if (matches >= required && matches > bestMatches) {
+                if (!rankRows)
+                    return ind;
+                best = ind;
+                bestMatches = matches;
+                if (matches == fields.size())
+                    break;
+            }
         }
-        return null;
+        return best;
     }
 
-    private long countFieldCoincidencesInRow(List<Field> fields, Row row) {
-        return row.getC().stream().mapToLong(cell -> fields.stream().parallel().filter(field -> {
-            return matchWithList(cell, field.getSynonyms());
-        }).count()).sum();
+    private int requiredMatches(List<Field> fields) {
+        return Math.max(1, (int) Math.ceil(minMatchRatio * fields.size()));
     }
 
     /**
-     * check if line contains data that are mostly string
+     * counts the distinct fields found in the text cells of a row
      */
-    private boolean rowContainString(Row row) {
+    private int countFieldMatches(Row row, FieldSynonymIndex fieldIndex) {
+        Set<Field> found = null;
         for (Cell cell : row.getC()) {
-            STCellType type = cell.getT();
-            if (type == STCellType.S || type == STCellType.INLINE_STR)
-                return true;
+            if (!isString(cell))
+                continue;
+            List<Field> matches = fieldIndex.lookup(formatter.formatCellValue(cell));
+            if (!matches.isEmpty()) {
+                if (found == null)
+                    found = Collections.newSetFromMap(new IdentityHashMap<>());
+                found.addAll(matches);
+            }
         }
-        return false;
+        return found == null ? 0 : found.size();
+    }
+
+    private static boolean isString(Cell cell) {
+        STCellType type = cell.getT();
+        return type == STCellType.S || type == STCellType.INLINE_STR;
     }
 
     public boolean matchWithList(Cell cell, List<String> values) {
-        if (cell.getT() != STCellType.S && cell.getT() != STCellType.INLINE_STR) {
+        if (!isString(cell)) {
             return false;
         }
         String cellV = formatter.formatCellValue(cell);
-        long count = values.stream().parallel()
-                .filter(value -> value.equalsIgnoreCase(cellV))
-                .count();
-        return count > 0;
+        for (String value : values) {
+            if (value.equalsIgnoreCase(cellV))
+                return true;
+        }
+        return false;
     }
 
     @Override
     public Integer searchColumn(Row row, Field field) {
+        FieldSynonymIndex current = index;
+        FieldSynonymIndex fieldIndex = current != null && current.contains(field)
+                ? current : FieldSynonymIndex.of(Collections.singletonList(field));
         for (Cell cell : row.getC()) {
-            if (matchCell(field, cell)) {
+            if (fieldIndex.lookup(formatter.formatCellValue(cell)).contains(field)) {
                 return Xlsx4jUtils.getColumn(cell.getR());
             }
         }
         return null;
     }
 
+    @Override
+    public Map<Field, Integer> searchColumns(Row row, List<Field> fields) {
+        FieldSynonymIndex fieldIndex = indexFor(fields);
+        Map<Field, Integer> columns = new HashMap<>();
+        for (Cell cell : row.getC()) {
+            List<Field> matches = fieldIndex.lookup(formatter.formatCellValue(cell));
+            for (Field field : matches) {
+                if (!columns.containsKey(field))
+                    columns.put(field, Xlsx4jUtils.getColumn(cell.getR()));
+            }
+        }
+        return columns;
+    }
+
     /**
      * verify if a un cellname match with a synonyms list
      *
      * @return
      */
     public boolean matchCell(Field field, Cell cell) {
-        if (cell != null
-                && formatter.formatCellValue(cell) != null
-                && stripAccents(formatter.formatCellValue(cell)).equalsIgnoreCase(stripAccents(field.getFieldName())))
-            return true;
-
-        for (String synonym : field.getSynonyms()) {
-            if (cell != null
-                    && formatter.formatCellValue(cell) != null
-                    && stripAccents(formatter.formatCellValue(cell)).equalsIgnoreCase(stripAccents(synonym))) {
-                return true;
-            }
-        }
-        return false;
+        if (cell == null)
+            return false;
+        return FieldSynonymIndex.of(Collections.singletonList(field)).lookup(formatter.formatCellValue(cell))
+                .contains(field);
     }
 
 }
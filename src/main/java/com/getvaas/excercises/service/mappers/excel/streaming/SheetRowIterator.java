@@ -0,0 +1,160 @@
+package com.getvaas.excercises.service.mappers.excel.streaming;
+
+import com.getvaas.excercises.service.mappers.excel.strings.SharedStringsTable;
+import org.xlsx4j.jaxb.Context;
+import org.xlsx4j.sml.*;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the rows of a worksheet part reading its xml with StAX.
+ * Each row is built as a detached xlsx4j {@link Row}, shared strings are resolved to inline strings
+ * so the cells can be formatted without the workbook. Only the current row is kept in memory
+ */
+public class SheetRowIterator implements Iterator<Row>, Closeable {
+    private final InputStream in;
+    private final XMLStreamReader xml;
+    private final SharedStringsTable sharedStrings;
+    private final ObjectFactory factory = Context.getsmlObjectFactory();
+    private Row next;
+    private boolean finished = false;
+
+    SheetRowIterator(InputStream in, XMLStreamReader xml, SharedStringsTable sharedStrings) {
+        this.in = in;
+        this.xml = xml;
+        this.sharedStrings = sharedStrings;
+    }
+
+    /**
+     * @throws UncheckedIOException if the xml of the sheet is malformed
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            try {
+                next = readRow();
+            } catch (XMLStreamException e) {
+                throw new UncheckedIOException(new IOException("Malformed worksheet", e));
+            }
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public Row next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        Row row = next;
+        next = null;
+        return row;
+    }
+
+    private Row readRow() throws XMLStreamException {
+        while (xml.hasNext()) {
+            if (xml.next() == XMLStreamConstants.START_ELEMENT && "row".equals(xml.getLocalName())) {
+                Row row = factory.createRow();
+                String r = xml.getAttributeValue(null, "r");
+                if (r != null)
+                    row.setR(Long.valueOf(r));
+                readCells(row);
+                return row;
+            }
+        }
+        return null;
+    }
+
+    private void readCells(Row row) throws XMLStreamException {
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "c".equals(xml.getLocalName())) {
+                row.getC().add(readCell());
+            } else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) {
+                return;
+            }
+        }
+    }
+
+    private Cell readCell() throws XMLStreamException {
+        Cell cell = factory.createCell();
+        cell.setR(xml.getAttributeValue(null, "r"));
+        String style = xml.getAttributeValue(null, "s");
+        if (style != null)
+            cell.setS(Long.valueOf(style));
+        String type = xml.getAttributeValue(null, "t");
+
+        String value = null;
+        String formula = null;
+        StringBuilder inlineText = null;
+        boolean phonetic = false;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = xml.getLocalName();
+                if ("v".equals(name)) {
+                    value = xml.getElementText();
+                } else if ("f".equals(name)) {
+                    formula = xml.getElementText();
+                } else if ("is".equals(name)) {
+                    inlineText = new StringBuilder();
+                } else if ("rPh".equals(name)) {
+                    phonetic = true;
+                } else if ("t".equals(name) && inlineText != null && !phonetic) {
+                    inlineText.append(xml.getElementText());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String name = xml.getLocalName();
+                if ("c".equals(name)) {
+                    break;
+                } else if ("rPh".equals(name)) {
+                    phonetic = false;
+                }
+            }
+        }
+
+        if ("s".equals(type)) {
+            cell.setT(STCellType.INLINE_STR);
+            cell.setIs(inlineString(value != null ? sharedStrings.get(Integer.parseInt(value)) : ""));
+        } else if ("inlineStr".equals(type)) {
+            cell.setT(STCellType.INLINE_STR);
+            cell.setIs(inlineString(inlineText != null ? inlineText.toString() : ""));
+        } else {
+            if (type != null)
+                cell.setT(STCellType.fromValue(type));
+            cell.setV(value);
+        }
+        if (formula != null) {
+            CTCellFormula f = new CTCellFormula();
+            f.setValue(formula);
+            cell.setF(f);
+        }
+        return cell;
+    }
+
+    private CTRst inlineString(String value) {
+        CTXstringWhitespace t = factory.createCTXstringWhitespace();
+        t.setValue(value);
+        CTRst rst = new CTRst();
+        rst.setT(t);
+        return rst;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.getvaas.excercises.service.mappers.excel.streaming;
+
+import com.getvaas.excercises.service.mappers.excel.strings.HeapSharedStringsTable;
+import com.getvaas.excercises.service.mappers.excel.strings.MappedSharedStringsTable;
+import com.getvaas.excercises.service.mappers.excel.strings.SharedStringsTable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads the worksheets of a xlsx document row by row with StAX, without loading the whole
+ * package in memory. The upload is spooled to a temporary file so the parts can be read in any
+ * order, only the shared strings table is kept in memory, out of the heap when it is very large
+ */
+public class XlsxStreamingReader implements Closeable {
+    private static final String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String OFFICE_DOCUMENT_REL = "/officeDocument";
+    private static final String SHARED_STRINGS_REL = "/sharedStrings";
+    private static final XMLInputFactory xmlInputFactory = createInputFactory();
+    /**
+     * Number of unique shared strings above which the table is kept out of the heap
+     */
+    public static final int DEFAULT_MAPPED_SHARED_STRINGS_THRESHOLD = 1_000_000;
+
+    /**
+     * Temporary copy of the uploaded document
+     */
+    private final Path spoolFile;
+    private final ZipFile zipFile;
+    /**
+     * Names of the sheets, in the order they are declared in the workbook
+     */
+    private final List<String> sheetNames = new ArrayList<>();
+    /**
+     * Zip entry of each sheet, same order as {@link #sheetNames}
+     */
+    private final List<String> sheetPaths = new ArrayList<>();
+    private String sharedStringsPath;
+    private boolean date1904 = false;
+    /**
+     * Shared strings table, loaded the first time a sheet is opened
+     */
+    private SharedStringsTable sharedStrings;
+    private int mappedSharedStringsThreshold = DEFAULT_MAPPED_SHARED_STRINGS_THRESHOLD;
+
+    public XlsxStreamingReader(InputStream excelStream) throws IOException {
+        spoolFile = Files.createTempFile("excel-mapper-", ".xlsx");
+        ZipFile zip = null;
+        try {
+            Files.copy(excelStream, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+            zip = new ZipFile(spoolFile.toFile());
+            readWorkbook(zip);
+        } catch (IOException | RuntimeException e) {
+            if (zip != null)
+                zip.close();
+            Files.deleteIfExists(spoolFile);
+            throw e;
+        }
+        zipFile = zip;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    static XMLStreamReader createXmlReader(InputStream in) throws IOException {
+        try {
+            return xmlInputFactory.createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            throw new IOException("Can't read xml part", e);
+        }
+    }
+
+    /**
+     * Finds the sheet whose name contains the given name, ignoring case.
+     * Behaves like the search done over a loaded package, if no sheet matches the last one is returned
+     *
+     * @param name part of the name of the sheet
+     * @return index of the sheet
+     */
+    public int searchIndexSheet(String name) {
+        int index = -1;
+        for (String sheetName : sheetNames) {
+            index++;
+            if (sheetName.toLowerCase().contains(name.toLowerCase())) {
+                return index;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Sets the number of unique shared strings above which the table is stored in a memory mapped file
+     * instead of the heap, it must be set before the first sheet is opened
+     *
+     * @param mappedSharedStringsThreshold number of unique strings
+     */
+    public void setMappedSharedStringsThreshold(int mappedSharedStringsThreshold) {
+        this.mappedSharedStringsThreshold = mappedSharedStringsThreshold;
+    }
+
+    /**
+     * @return whether the workbook uses the 1904 date system
+     */
+    public boolean isDate1904() {
+        return date1904;
+    }
+
+    /**
+     * @return number of sheets in the workbook
+     */
+    public int getSheetsCount() {
+        return sheetNames.size();
+    }
+
+    /**
+     * Opens a sheet to be read row by row, the returned iterator must be closed once it is no longer used
+     *
+     * @param indexSheet index of the sheet
+     * @return iterator over the rows of the sheet
+     * @throws IOException if the sheet can't be read
+     */
+    public SheetRowIterator openSheet(int indexSheet) throws IOException {
+        if (indexSheet < 0 || indexSheet >= sheetPaths.size())
+            throw new IOException("Sheet " + indexSheet + " not found");
+        ZipEntry entry = zipFile.getEntry(sheetPaths.get(indexSheet));
+        if (entry == null)
+            throw new IOException("Sheet part " + sheetPaths.get(indexSheet) + " not found");
+        SharedStringsTable strings = getSharedStrings();
+        InputStream in = zipFile.getInputStream(entry);
+        try {
+            return new SheetRowIterator(in, createXmlReader(in), strings);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private synchronized SharedStringsTable getSharedStrings() throws IOException {
+        if (sharedStrings == null) {
+            sharedStrings = readSharedStrings();
+        }
+        return sharedStrings;
+    }
+
+    private void readWorkbook(ZipFile zip) throws IOException {
+        String workbookPath = null;
+        for (Map.Entry<String, String> rel : readRelationships(zip, "_rels/.rels").entrySet()) {
+            if (rel.getValue().endsWith(OFFICE_DOCUMENT_REL)) {
+                workbookPath = resolvePath("", rel.getKey());
+            }
+        }
+        if (workbookPath == null)
+            throw new IOException("The document doesn't contain a workbook");
+        int lastSlash = workbookPath.lastIndexOf('/');
+        String baseDir = workbookPath.substring(0, lastSlash + 1);
+        String relsPath = baseDir + "_rels/" + workbookPath.substring(lastSlash + 1) + ".rels";
+
+        Map<String, String> targetsById = new HashMap<>();
+        for (Map.Entry<String, String> rel : readRelationshipTargets(zip, relsPath).entrySet()) {
+            targetsById.put(rel.getKey(), resolvePath(baseDir, rel.getValue()));
+        }
+        for (Map.Entry<String, String> rel : readRelationships(zip, relsPath).entrySet()) {
+            if (rel.getValue().endsWith(SHARED_STRINGS_REL)) {
+                sharedStringsPath = resolvePath(baseDir, rel.getKey());
+            }
+        }
+
+        ZipEntry workbookEntry = zip.getEntry(workbookPath);
+        if (workbookEntry == null)
+            throw new IOException("Workbook part " + workbookPath + " not found");
+        try (InputStream in = zip.getInputStream(workbookEntry)) {
+            XMLStreamReader xml = createXmlReader(in);
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() != XMLStreamConstants.START_ELEMENT)
+                        continue;
+                    if ("sheet".equals(xml.getLocalName())) {
+                        sheetNames.add(xml.getAttributeValue(null, "name"));
+                        sheetPaths.add(targetsById.get(xml.getAttributeValue(RELATIONSHIPS_NS, "id")));
+                    } else if ("workbookPr".equals(xml.getLocalName())) {
+                        String value = xml.getAttributeValue(null, "date1904");
+                        date1904 = "1".equals(value) || "true".equals(value);
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Can't read workbook part", e);
+        }
+    }
+
+    /**
+     * Reads a relationships part
+     *
+     * @return map of target to relationship type
+     */
+    private static Map<String, String> readRelationships(ZipFile zip, String path) throws IOException {
+        return readRelationshipAttributes(zip, path, "Target", "Type");
+    }
+
+    /**
+     * Reads a relationships part
+     *
+     * @return map of relationship id to target
+     */
+    private static Map<String, String> readRelationshipTargets(ZipFile zip, String path) throws IOException {
+        return readRelationshipAttributes(zip, path, "Id", "Target");
+    }
+
+    private static Map<String, String> readRelationshipAttributes(ZipFile zip, String path, String key, String value)
+            throws IOException {
+        ZipEntry entry = zip.getEntry(path);
+        if (entry == null)
+            return Collections.emptyMap();
+        Map<String, String> attributes = new HashMap<>();
+        try (InputStream in = zip.getInputStream(entry)) {
+            XMLStreamReader xml = createXmlReader(in);
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT && "Relationship".equals(xml.getLocalName())) {
+                        if (!"External".equals(xml.getAttributeValue(null, "TargetMode")))
+                            attributes.put(xml.getAttributeValue(null, key), xml.getAttributeValue(null, value));
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Can't read relationships part " + path, e);
+        }
+        return attributes;
+    }
+
+    private static String resolvePath(String baseDir, String target) {
+        if (target.startsWith("/"))
+            return target.substring(1);
+        String path = baseDir + target;
+        int parent;
+        while ((parent = path.indexOf("/../")) > 0) {
+            int start = path.lastIndexOf('/', parent - 1);
+            path = path.substring(0, start + 1) + path.substring(parent + 4);
+        }
+        return path;
+    }
+
+    private SharedStringsTable readSharedStrings() throws IOException {
+        if (sharedStringsPath == null)
+            return HeapSharedStringsTable.of(Collections.emptyList());
+        ZipEntry entry = zipFile.getEntry(sharedStringsPath);
+        if (entry == null)
+            return HeapSharedStringsTable.of(Collections.emptyList());
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            XMLStreamReader xml = createXmlReader(in);
+            try {
+                return readSharedStrings(xml);
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Can't read shared strings part", e);
+        }
+    }
+
+    private SharedStringsTable readSharedStrings(XMLStreamReader xml) throws XMLStreamException, IOException {
+        List<String> strings = null;
+        MappedSharedStringsTable.Builder mapped = null;
+        try {
+            StringBuilder value = new StringBuilder();
+            boolean phonetic = false;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("sst".equals(name)) {
+                        String uniqueCount = xml.getAttributeValue(null, "uniqueCount");
+                        if (uniqueCount != null && Long.parseLong(uniqueCount) > mappedSharedStringsThreshold)
+                            mapped = MappedSharedStringsTable.builder();
+                        else
+                            strings = new ArrayList<>(uniqueCount != null ? Integer.parseInt(uniqueCount) : 16);
+                    } else if ("si".equals(name)) {
+                        value.setLength(0);
+                    } else if ("rPh".equals(name)) {
+                        phonetic = true;
+                    } else if ("t".equals(name) && !phonetic) {
+                        value.append(xml.getElementText());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("si".equals(name)) {
+                        if (mapped != null)
+                            mapped.add(value.toString());
+                        else
+                            strings.add(value.toString());
+                    } else if ("rPh".equals(name)) {
+                        phonetic = false;
+                    }
+                }
+            }
+            if (mapped != null)
+                return mapped.build();
+            return HeapSharedStringsTable.of(strings != null ? strings : Collections.emptyList());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid shared strings count", e);
+        } finally {
+            if (mapped != null)
+                mapped.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            zipFile.close();
+        } finally {
+            try {
+                synchronized (this) {
+                    if (sharedStrings != null)
+                        sharedStrings.close();
+                }
+            } finally {
+                Files.deleteIfExists(spoolFile);
+            }
+        }
+    }
+}
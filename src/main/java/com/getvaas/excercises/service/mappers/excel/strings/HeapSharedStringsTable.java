@@ -0,0 +1,92 @@
+package com.getvaas.excercises.service.mappers.excel.strings;
+
+import org.docx4j.XmlUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xlsx4j.jaxb.Context;
+import org.xlsx4j.sml.CTRElt;
+import org.xlsx4j.sml.CTRst;
+
+import java.util.List;
+
+/**
+ * Shared strings table kept in the heap. Each string is resolved once and the same instance is returned
+ * afterwards, so a value repeated in thousands of cells is only built one time
+ */
+public class HeapSharedStringsTable implements SharedStringsTable {
+    private static final Logger logger = LoggerFactory.getLogger(HeapSharedStringsTable.class);
+
+    /**
+     * Items of the table as unmarshalled by docx4j, {@code null} when the strings were given already resolved
+     */
+    private final List<CTRst> items;
+    private final String[] strings;
+
+    private HeapSharedStringsTable(List<CTRst> items, String[] strings) {
+        this.items = items;
+        this.strings = strings;
+    }
+
+    /**
+     * Creates a table over the items of a loaded shared strings part, each item is resolved the first time
+     * it is requested
+     *
+     * @param items items of the shared strings part
+     * @return the table
+     */
+    public static HeapSharedStringsTable lazy(List<CTRst> items) {
+        return new HeapSharedStringsTable(items, new String[items.size()]);
+    }
+
+    /**
+     * Creates a table from strings already resolved
+     *
+     * @param strings text of each item, in the order of the table
+     * @return the table
+     */
+    public static HeapSharedStringsTable of(List<String> strings) {
+        return new HeapSharedStringsTable(null, strings.toArray(new String[0]));
+    }
+
+    @Override
+    public String get(int index) {
+        String value = strings[index];
+        if (value == null) {
+            // resolving twice from two threads gives the same text, Strings are safe to publish this way
+            value = resolve(items.get(index));
+            strings[index] = value;
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return strings.length;
+    }
+
+    /**
+     * Flattens an item of the table to its text
+     *
+     * @param rst item of the shared strings table
+     * @return text of the item, the text of the rich text runs concatenated
+     */
+    public static String resolve(CTRst rst) {
+        if (rst.getR().size() > 0
+                && rst.getT() != null) {
+            logger.error(XmlUtils.marshaltoString(rst, Context.jcSML));
+            throw new RuntimeException("Shared string contained 2 types of data");
+        }
+
+        if (rst.getT() != null) {
+            return rst.getT().getValue();
+        }
+
+        if (rst.getR().size() == 1)
+            return rst.getR().get(0).getT().getValue();
+        StringBuilder sb = new StringBuilder();
+        for (CTRElt rElt : rst.getR()) {
+            sb.append(rElt.getT().getValue()); // TODO worry about whitespace
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,165 @@
+package com.getvaas.excercises.service.mappers.excel.strings;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Shared strings table stored out of the heap in a memory mapped temporary file, for tables too large
+ * to keep as java Strings. The text is kept as UTF-8 and decoded on each lookup, the most recently used
+ * strings are cached so values repeated in consecutive rows are not decoded again
+ */
+public class MappedSharedStringsTable implements SharedStringsTable {
+    private static final int CACHE_SIZE = 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    /**
+     * Start of each string in the file, the string {@code i} ends where {@code i + 1} starts
+     */
+    private final int[] offsets;
+    private final int size;
+    /**
+     * Recently decoded strings, slot {@code index % CACHE_SIZE} holds the last string decoded for that slot
+     */
+    private final CachedString[] cache = new CachedString[CACHE_SIZE];
+
+    private MappedSharedStringsTable(Path file, int[] offsets, int size) throws IOException {
+        this.file = file;
+        this.offsets = offsets;
+        this.size = size;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, offsets[size]);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return a builder that writes the strings to a temporary file
+     */
+    public static Builder builder() throws IOException {
+        return new Builder();
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Shared string " + index + " not found, the table has " + size);
+        int slot = index % CACHE_SIZE;
+        CachedString cached = cache[slot];
+        if (cached != null && cached.index == index)
+            return cached.value;
+        int start = offsets[index];
+        byte[] bytes = new byte[offsets[index + 1] - start];
+        ByteBuffer view = buffer.duplicate();
+        view.position(start);
+        view.get(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        cache[slot] = new CachedString(index, value);
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static final class CachedString {
+        private final int index;
+        private final String value;
+
+        private CachedString(int index, String value) {
+            this.index = index;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Writes the strings of the table, in order, to a temporary file
+     */
+    public static class Builder implements Closeable {
+        private final Path file;
+        private final OutputStream out;
+        private int[] offsets = new int[1024];
+        private int size = 0;
+        private long length = 0;
+        private boolean built = false;
+
+        private Builder() throws IOException {
+            file = Files.createTempFile("shared-strings-", ".bin");
+            try {
+                out = new BufferedOutputStream(Files.newOutputStream(file));
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        }
+
+        /**
+         * Appends the next string of the table
+         *
+         * @param value text of the string
+         * @return this builder
+         * @throws IOException if the string can't be written or the table exceeds 2GB
+         */
+        public Builder add(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (length + bytes.length > Integer.MAX_VALUE)
+                throw new IOException("Shared strings table is larger than 2GB");
+            out.write(bytes);
+            length += bytes.length;
+            if (size + 2 > offsets.length)
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            offsets[++size] = (int) length;
+            return this;
+        }
+
+        /**
+         * Maps the written strings, the builder can't be used afterwards
+         *
+         * @return the table, it must be closed to delete the temporary file
+         */
+        public MappedSharedStringsTable build() throws IOException {
+            out.close();
+            MappedSharedStringsTable table = new MappedSharedStringsTable(file, offsets, size);
+            built = true;
+            return table;
+        }
+
+        /**
+         * Deletes the temporary file if the table was not built
+         */
+        @Override
+        public void close() throws IOException {
+            if (!built) {
+                try {
+                    out.close();
+                } finally {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.getvaas.excercises.service.mappers.excel.strings;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Shared strings table of a workbook resolved to plain text, the strings are looked up by their index
+ * in the table as written in the {@code v} element of the cells
+ */
+public interface SharedStringsTable extends Closeable {
+
+    /**
+     * @param index index of the string in the table
+     * @return text of the string, rich text runs are concatenated
+     * @throws IndexOutOfBoundsException if there is no string with that index
+     */
+    String get(int index);
+
+    /**
+     * @return number of strings in the table
+     */
+    int size();
+
+    /**
+     * Releases the resources held by the table, the heap variants don't hold any
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
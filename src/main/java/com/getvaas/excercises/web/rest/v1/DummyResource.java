@@ -1,22 +1,38 @@
 package com.getvaas.excercises.web.rest.v1;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.getvaas.excercises.core.domain.Match;
 import com.getvaas.excercises.core.football.MatchCoordinator;
-import com.getvaas.excercises.repository.login.MatchRepository;
+import com.getvaas.excercises.core.football.MatchPager;
 import com.getvaas.excercises.repository.login.TeamRepository;
 import io.swagger.annotations.ApiOperation;
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 @AllArgsConstructor
 @RestController
 @RequestMapping("/api/v1/dummy")
 public class DummyResource {
+    /**
+     * Newline delimited JSON, one match per line
+     */
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private MatchCoordinator matchCoordinator;
+    private MatchPager matchPager;
     private TeamRepository teamRepository;
+    private ObjectMapper objectMapper;
 
     @GetMapping("/get-first-team")
     @ApiOperation(value = "Hello World", produces = "application/json")
@@ -26,6 +42,42 @@ public class DummyResource {
 
     }
 
+    @GetMapping("/get-first-team/page")
+    @ApiOperation(value = "Matches after the given id, in id order", produces = "application/json")
+    public ResponseEntity<?> getFirstTeamPage(@RequestParam(name = "afterId", required = false) Long afterId,
+                                              @RequestParam(name = "size", defaultValue = "500") Integer size) {
+
+        return ResponseEntity.ok(matchPager.page(afterId, size));
+
+    }
+
+    @GetMapping(value = "/get-first-team/stream", produces = APPLICATION_NDJSON_VALUE)
+    @ApiOperation(value = "All the matches, one JSON per line", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFirstTeam() {
+
+        StreamingResponseBody body = out -> matchPager.forEachSlice(MatchPager.DEFAULT_SLICE_SIZE, matches -> {
+            try {
+                for (Match match : matches) {
+                    out.write(objectMapper.writeValueAsBytes(match));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE)).body(body);
+
+    }
+
+    @GetMapping(value = "/get-first-team/flux", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    @ApiOperation(value = "All the matches, streamed as they are read", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<Match> fluxFirstTeam() {
+
+        return matchPager.flux(MatchPager.DEFAULT_SLICE_SIZE);
+
+    }
+
     @GetMapping("/get-team")
     @ApiOperation(value = "Hello World", produces = "application/json")
     public ResponseEntity<?> getTeam(@RequestAttribute(name = "teamId") Integer teamId) {